@@ -0,0 +1,97 @@
+package dev.aziz.bankingservice.benchmarks;
+
+import dev.aziz.bankingservice.config.JwtAuthFilter;
+import dev.aziz.bankingservice.config.UserAuthProvider;
+import dev.aziz.bankingservice.dtos.UserDto;
+import dev.aziz.bankingservice.repositories.RevokedTokenRepository;
+import dev.aziz.bankingservice.services.TokenRevocationService;
+import dev.aziz.bankingservice.services.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Token signing, verification and the bearer header handling in {@link JwtAuthFilter}. The user
+ * lookup is a stub that the principal cache answers after the first call, so no database is involved.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class AuthenticationBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> {
+    };
+
+    private UserAuthProvider userAuthProvider;
+    private JwtAuthFilter jwtAuthFilter;
+    private String token;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        UserService userService = mock(UserService.class);
+        when(userService.findByLogin(anyString()))
+                .thenAnswer(invocation -> UserDto.builder().id(1L).login(invocation.getArgument(0)).build());
+        TokenRevocationService tokenRevocationService = new TokenRevocationService(mock(RevokedTokenRepository.class));
+
+        userAuthProvider = new UserAuthProvider(userService, tokenRevocationService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(userAuthProvider, "secretKey", "benchmark-secret");
+        ReflectionTestUtils.setField(userAuthProvider, "principalCacheMaxSize", 10_000L);
+        ReflectionTestUtils.setField(userAuthProvider, "principalCacheTtl", Duration.ofMinutes(10));
+        ReflectionTestUtils.invokeMethod(userAuthProvider, "init");
+
+        jwtAuthFilter = new JwtAuthFilter(userAuthProvider);
+        token = userAuthProvider.createToken("azizdev");
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public String createToken() {
+        return userAuthProvider.createToken("azizdev");
+    }
+
+    @Benchmark
+    public Authentication validateToken() {
+        return userAuthProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public Authentication filterBearerHeader() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/1");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        return filter(request);
+    }
+
+    @Benchmark
+    public Authentication filterWithoutHeader() throws ServletException, IOException {
+        return filter(new MockHttpServletRequest("GET", "/users/1"));
+    }
+
+    private Authentication filter(MockHttpServletRequest request) throws ServletException, IOException {
+        jwtAuthFilter.doFilter(request, response, NO_OP_CHAIN);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
@@ -0,0 +1,50 @@
+package dev.aziz.bankingservice.benchmarks;
+
+import dev.aziz.bankingservice.entities.Email;
+import dev.aziz.bankingservice.entities.PhoneNumber;
+import dev.aziz.bankingservice.entities.User;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+final class BenchmarkUsers {
+
+    private BenchmarkUsers() {
+    }
+
+    /**
+     * Users shaped like a search page: two emails and two phone numbers each, and a balance that
+     * has been accruing for a few minutes so the mapper runs the interest arithmetic.
+     */
+    static List<User> page(int size) {
+        Instant lastAccruedAt = Instant.now().minusSeconds(300);
+        List<User> users = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            long id = i + 1;
+            User user = User.builder()
+                    .id(id)
+                    .login("user" + id)
+                    .firstName("First" + id)
+                    .lastName("Last" + id)
+                    .birthDate(LocalDate.of(1970 + i % 40, 1 + i % 12, 1 + i % 28))
+                    .password("$2a$10$abcdefghijklmnopqrstuuJ2Zc0sN1y8pVJb1Z2bqkF0u1zB9y7yS")
+                    .initialDeposit(BigDecimal.valueOf(1000 + i))
+                    .account(BigDecimal.valueOf(1000 + i))
+                    .lastAccruedAt(lastAccruedAt)
+                    .ledgerSeq(0L)
+                    .version(0L)
+                    .build();
+            user.setEmails(new ArrayList<>(List.of(
+                    Email.builder().id(id * 2).name("user" + id + "@mail.com").nameKey("user" + id + "@mail.com").user(user).build(),
+                    Email.builder().id(id * 2 + 1).name("user" + id + "@work.com").nameKey("user" + id + "@work.com").user(user).build())));
+            user.setPhoneNumbers(new ArrayList<>(List.of(
+                    PhoneNumber.builder().id(id * 2).number("7999" + (1_000_000 + id)).numberKey(79_990_000_000L + id).user(user).build(),
+                    PhoneNumber.builder().id(id * 2 + 1).number("7998" + (1_000_000 + id)).numberKey(79_980_000_000L + id).user(user).build())));
+            users.add(user);
+        }
+        return users;
+    }
+}
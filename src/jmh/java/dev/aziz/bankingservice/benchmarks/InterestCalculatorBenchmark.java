@@ -0,0 +1,53 @@
+package dev.aziz.bankingservice.benchmarks;
+
+import dev.aziz.bankingservice.entities.User;
+import dev.aziz.bankingservice.services.InterestCalculator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The accrual arithmetic shared by the sweep, transfers and the mappers. 1 and 10 periods take
+ * the {@code pow} path, 1000 periods is far past the cap and short-circuits.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class InterestCalculatorBenchmark {
+
+    @Param({"1", "10", "1000"})
+    private long periods;
+
+    private final BigDecimal account = new BigDecimal("1234.567");
+    private final BigDecimal initialDeposit = new BigDecimal("1000.000");
+    private User user;
+    private Instant now;
+
+    @Setup
+    public void setUp() {
+        now = Instant.now();
+        user = User.builder().account(account).initialDeposit(initialDeposit).build();
+    }
+
+    @Benchmark
+    public BigDecimal accruedBalance() {
+        return InterestCalculator.accruedBalance(account, initialDeposit, periods);
+    }
+
+    @Benchmark
+    public User accrue() {
+        user.setAccount(account);
+        user.setLastAccruedAt(now.minus(InterestCalculator.PERIOD.multipliedBy(periods)));
+        InterestCalculator.accrue(user, now);
+        return user;
+    }
+}
@@ -0,0 +1,50 @@
+package dev.aziz.bankingservice.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.aziz.bankingservice.dtos.UserSummaryDto;
+import dev.aziz.bankingservice.mappers.UserMapperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response bodies as the controllers write them: summaries with the {@code Email} and
+ * {@code PhoneNumber} entities embedded, through an object mapper configured like Spring Boot's.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private List<UserSummaryDto> page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        page = new UserMapperImpl().usersToUserSummaryDtos(BenchmarkUsers.page(pageSize));
+    }
+
+    @Benchmark
+    public byte[] userSummary() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page.get(0));
+    }
+
+    @Benchmark
+    public byte[] userSummaryPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,44 @@
+package dev.aziz.bankingservice.benchmarks;
+
+import dev.aziz.bankingservice.dtos.UserSummaryDto;
+import dev.aziz.bankingservice.entities.User;
+import dev.aziz.bankingservice.mappers.UserMapper;
+import dev.aziz.bankingservice.mappers.UserMapperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class UserMapperBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int pageSize;
+
+    private final UserMapper userMapper = new UserMapperImpl();
+    private List<User> users;
+
+    @Setup
+    public void setUp() {
+        users = BenchmarkUsers.page(pageSize);
+    }
+
+    @Benchmark
+    public UserSummaryDto userToUserSummaryDto() {
+        return userMapper.userToUserSummaryDto(users.get(0));
+    }
+
+    @Benchmark
+    public List<UserSummaryDto> usersToUserSummaryDtos() {
+        return userMapper.usersToUserSummaryDtos(users);
+    }
+}
@@ -0,0 +1,70 @@
+package dev.aziz.bankingservice.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import dev.aziz.bankingservice.entities.Email;
+import dev.aziz.bankingservice.entities.PhoneNumber;
+import dev.aziz.bankingservice.entities.User;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+/**
+ * Second-level cache for users and their contacts. Each entity can be switched off on its own;
+ * a contact collection is only cached while both the user and the contact entity are.
+ */
+@Configuration
+public class EntityCacheConfig {
+
+    static final String USAGE = "read-write";
+
+    @Value("${entity-cache.user:true}")
+    private boolean user;
+
+    @Value("${entity-cache.email:true}")
+    private boolean email;
+
+    @Value("${entity-cache.phone-number:true}")
+    private boolean phoneNumber;
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheCustomizer() {
+        return properties -> {
+            if (!user && !email && !phoneNumber) {
+                properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, false);
+                return;
+            }
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, user);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put("hibernate.javax.cache.provider", CaffeineCachingProvider.class.getName());
+            properties.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+            if (user) {
+                cacheEntity(properties, User.class, "user");
+            }
+            if (email) {
+                cacheEntity(properties, Email.class, "email");
+            }
+            if (phoneNumber) {
+                cacheEntity(properties, PhoneNumber.class, "phone-number");
+            }
+            if (user && email) {
+                cacheCollection(properties, User.class, "emails", "user-emails");
+            }
+            if (user && phoneNumber) {
+                cacheCollection(properties, User.class, "phoneNumbers", "user-phone-numbers");
+            }
+        };
+    }
+
+    private static void cacheEntity(Map<String, Object> properties, Class<?> entity, String region) {
+        properties.put(AvailableSettings.CLASS_CACHE_PREFIX + "." + entity.getName(), USAGE + "," + region);
+    }
+
+    private static void cacheCollection(Map<String, Object> properties, Class<?> owner, String role, String region) {
+        properties.put(AvailableSettings.COLLECTION_CACHE_PREFIX + "." + owner.getName() + "." + role, USAGE + "," + region);
+    }
+}
@@ -0,0 +1,30 @@
+package dev.aziz.bankingservice.config;
+
+import dev.aziz.bankingservice.entities.User;
+import dev.aziz.bankingservice.events.UserChangedEvent;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Drops changed users from the second-level cache once the change has committed. Needed for
+ * balances written with JDBC and for forced version increments, neither of which Hibernate
+ * applies to cached entries. A load that read the old row before the commit can still put it back
+ * afterwards; {@code UserResponseCache} checks rendered users against the database version for that.
+ */
+@RequiredArgsConstructor
+@Component
+public class EntityCacheEvictor {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.isAllUsers()) {
+            entityManagerFactory.getCache().evict(User.class);
+        } else {
+            entityManagerFactory.getCache().evict(User.class, event.getId());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package dev.aziz.bankingservice.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes size, hit and miss counts of every second-level cache region, tagged with the region name.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@Component
+public class EntityCacheMetrics {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final MeterRegistry meterRegistry;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void registerMetrics() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        RegionFactory regionFactory = sessionFactory.getServiceRegistry().getService(RegionFactory.class);
+        if (!(regionFactory instanceof JCacheRegionFactory jCacheRegionFactory)) {
+            log.info("Second-level cache is disabled.");
+            return;
+        }
+        for (String region : jCacheRegionFactory.getCacheManager().getCacheNames()) {
+            Cache<?, ?> cache = jCacheRegionFactory.getCacheManager().getCache(region).unwrap(Cache.class);
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "entity-" + region);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package dev.aziz.bankingservice.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Most JDBC statements a request to the annotated endpoint may run, with warm caches. Checked by
+ * {@link QueryCountFilter}: overruns are logged, or fail the request when budgets are enforced.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface QueryBudget {
+
+    int statements();
+}
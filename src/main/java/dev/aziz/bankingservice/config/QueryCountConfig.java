@@ -0,0 +1,45 @@
+package dev.aziz.bankingservice.config;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the data source in a datasource-proxy that counts statements per thread, and registers
+ * {@link QueryCountFilter} ahead of the security filters so token lookups are counted too.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "query-count", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class QueryCountConfig {
+
+    @Bean
+    public static BeanPostProcessor queryCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(beanName, dataSource).countQuery().build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<QueryCountFilter> queryCountFilter(
+            @Value("${query-count.response-headers:false}") boolean responseHeaders,
+            @Value("${query-count.enforce-budgets:false}") boolean enforceBudgets) {
+        FilterRegistrationBean<QueryCountFilter> registration =
+                new FilterRegistrationBean<>(new QueryCountFilter(responseHeaders, enforceBudgets));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
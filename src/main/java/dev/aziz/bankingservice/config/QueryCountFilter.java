@@ -0,0 +1,73 @@
+package dev.aziz.bankingservice.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+
+/**
+ * Counts the JDBC statements and database time of each request from the per-thread counters of
+ * the datasource proxy, and holds them against the endpoint's {@link QueryBudget}.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENTS_HEADER = "X-Query-Count";
+    public static final String TIME_HEADER = "X-Query-Time";
+
+    private final boolean responseHeaders;
+    private final boolean enforceBudgets;
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        QueryCountHolder.clear();
+        // Headers cannot be added once the body is out, so in header mode the body is held back until the count is known.
+        ContentCachingResponseWrapper wrapper = responseHeaders ? new ContentCachingResponseWrapper(response) : null;
+        try {
+            filterChain.doFilter(request, wrapper != null ? wrapper : response);
+
+            QueryCount count = QueryCountHolder.getGrandTotal();
+            log.debug("{} {} ran {} statements in {} ms.", request.getMethod(), request.getRequestURI(), count.getTotal(), count.getTime());
+            if (wrapper != null) {
+                wrapper.setHeader(STATEMENTS_HEADER, String.valueOf(count.getTotal()));
+                wrapper.setHeader(TIME_HEADER, String.valueOf(count.getTime()));
+            }
+            checkBudget(request, count.getTotal());
+        } finally {
+            if (wrapper != null) {
+                wrapper.copyBodyToResponse();
+            }
+            QueryCountHolder.clear();
+        }
+    }
+
+    private void checkBudget(HttpServletRequest request, long statements) {
+        if (!(request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handler)) {
+            return;
+        }
+        QueryBudget budget = handler.getMethodAnnotation(QueryBudget.class);
+        if (budget == null || statements <= budget.statements()) {
+            return;
+        }
+        String message = request.getMethod() + " " + request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) +
+                " ran " + statements + " statements, its budget is " + budget.statements();
+        if (enforceBudgets) {
+            throw new IllegalStateException(message);
+        }
+        log.warn(message);
+    }
+}
@@ -4,18 +4,29 @@ import com.auth0.jwt.JWT;
 import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import dev.aziz.bankingservice.dtos.UserDto;
+import dev.aziz.bankingservice.events.UserChangedEvent;
+import dev.aziz.bankingservice.exceptions.AppException;
+import dev.aziz.bankingservice.services.TokenRevocationService;
 import dev.aziz.bankingservice.services.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.Duration;
 import java.util.Base64;
 import java.util.Collections;
 import java.util.Date;
+import java.util.UUID;
 
 @RequiredArgsConstructor
 @Component
@@ -24,43 +35,68 @@ public class UserAuthProvider {
     @Value("${security.jwt.token.secret-key:secret-value}")
     private String secretKey;
 
+    @Value("${security.principal-cache.max-size:10000}")
+    private long principalCacheMaxSize;
+
+    @Value("${security.principal-cache.ttl:60s}")
+    private Duration principalCacheTtl;
+
     private final UserService userService;
+    private final TokenRevocationService tokenRevocationService;
+    private final MeterRegistry meterRegistry;
+
+    private Algorithm algorithm;
+    private JWTVerifier verifier;
+    private Cache<String, UserDto> principals;
 
     @PostConstruct
     protected void init() {
         secretKey = Base64.getEncoder().encodeToString(secretKey.getBytes());
+        algorithm = Algorithm.HMAC256(secretKey);
+        verifier = JWT.require(algorithm).build();
+        principals = Caffeine.newBuilder()
+                .maximumSize(principalCacheMaxSize)
+                .expireAfterWrite(principalCacheTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "principals");
     }
 
     public String createToken(String login) {
         Date now = new Date();
         Date validity = new Date(now.getTime() + 3_600_000);
         return JWT.create()
+                .withJWTId(UUID.randomUUID().toString())
                 .withIssuer(login)
                 .withIssuedAt(now)
                 .withExpiresAt(validity)
-                .sign(Algorithm.HMAC256(secretKey));
+                .sign(algorithm);
     }
 
     public Authentication validateToken(String token) {
-        JWTVerifier verifier = JWT.require(Algorithm.HMAC256(secretKey)).build();
-
         DecodedJWT decodedJWT = verifier.verify(token);
+        if (decodedJWT.getId() != null && tokenRevocationService.isRevoked(decodedJWT.getId())) {
+            throw new AppException("Token has been revoked", HttpStatus.UNAUTHORIZED);
+        }
 
-        UserDto user = userService.findByLogin(decodedJWT.getIssuer());
+        UserDto user = principals.get(decodedJWT.getIssuer(), userService::findByLogin);
 
         return new UsernamePasswordAuthenticationToken(user, null, Collections.emptyList());
     }
-}
-
-
-
-
-
-
-
-
-
-
-
 
+    public void revokeToken(String token) {
+        DecodedJWT decodedJWT = verifier.verify(token);
+        if (decodedJWT.getId() != null) {
+            tokenRevocationService.revoke(decodedJWT.getId(), decodedJWT.getExpiresAtAsInstant());
+        }
+    }
 
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.isAllUsers()) {
+            principals.invalidateAll();
+        } else {
+            principals.invalidate(event.getLogin());
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package dev.aziz.bankingservice.config;
 
+import dev.aziz.bankingservice.services.IdempotencyService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
@@ -25,7 +26,11 @@ public class WebConfig {
                                 HttpMethod.DELETE.name())
                         .allowedHeaders(HttpHeaders.CONTENT_TYPE,
                                 HttpHeaders.ACCEPT,
-                                HttpHeaders.AUTHORIZATION);
+                                HttpHeaders.AUTHORIZATION,
+                                IdempotencyService.HEADER)
+                        .exposedHeaders("X-Next-Cursor",
+                                QueryCountFilter.STATEMENTS_HEADER,
+                                QueryCountFilter.TIME_HEADER);
 
             }
         };
@@ -1,6 +1,7 @@
 package dev.aziz.bankingservice.controllers;
 
 
+import dev.aziz.bankingservice.config.QueryBudget;
 import dev.aziz.bankingservice.config.UserAuthProvider;
 import dev.aziz.bankingservice.dtos.CredentialsDto;
 import dev.aziz.bankingservice.dtos.SignUpDto;
@@ -9,11 +10,13 @@ import dev.aziz.bankingservice.services.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.net.URI;
@@ -29,6 +32,7 @@ public class AuthenticationController {
     @Operation(
             summary = "Login with username and password as JSON (CredentialsDto)."
     )
+    @QueryBudget(statements = 2)
     @PostMapping("/login")
     public ResponseEntity<UserDto> login(@RequestBody CredentialsDto credentialsDto) {
         UserDto user = userService.login(credentialsDto);
@@ -52,7 +56,9 @@ public class AuthenticationController {
             summary = "User should be logged in."
     )
     @PostMapping("/signout")
-    public ResponseEntity<Void> logOut(@AuthenticationPrincipal UserDto userDto) {
+    public ResponseEntity<Void> logOut(@AuthenticationPrincipal UserDto userDto,
+                                       @RequestHeader(HttpHeaders.AUTHORIZATION) String header) {
+        userAuthProvider.revokeToken(header.split(" ")[1]);
         SecurityContextHolder.clearContext();
         return ResponseEntity.noContent().build();
     }
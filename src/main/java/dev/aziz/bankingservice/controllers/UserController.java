@@ -1,13 +1,26 @@
 package dev.aziz.bankingservice.controllers;
 
+import dev.aziz.bankingservice.config.QueryBudget;
+import dev.aziz.bankingservice.dtos.BatchTransferDto;
+import dev.aziz.bankingservice.dtos.BatchTransferResultDto;
 import dev.aziz.bankingservice.dtos.UserDto;
+import dev.aziz.bankingservice.dtos.UserScrollDto;
 import dev.aziz.bankingservice.dtos.UserSummaryDto;
 import dev.aziz.bankingservice.entities.User;
+import dev.aziz.bankingservice.services.BatchTransferService;
+import dev.aziz.bankingservice.services.IdempotencyService;
+import dev.aziz.bankingservice.services.UserResponseCache;
 import dev.aziz.bankingservice.services.UserService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
@@ -21,42 +34,85 @@ import java.util.List;
 @Tag(name = "Users endpoints")
 public class UserController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final UserService userService;
+    private final BatchTransferService batchTransferService;
+    private final UserResponseCache userResponseCache;
 
     @Operation(
             summary = "Get all users and filter and search.",
-            description = "String name, Integer birthDate, String phone, String email, int page, int size, String sortField, String sortDirection these params can be added to request."
+            description = "String name, Integer birthDate, String phone, String email, int page, int size, String sortField, String sortDirection these params can be added to request. " +
+                    "Pass after (empty for the first slice) to page by cursor instead of page number; " +
+                    "the cursor of the next slice is returned in the X-Next-Cursor header."
     )
+    @QueryBudget(statements = 4)
     @GetMapping
-    public List<UserSummaryDto> searchUsers(@RequestParam(required = false) String name,
-                                            @RequestParam(required = false) Integer birthDate,
-                                            @RequestParam(required = false) String phone,
-                                            @RequestParam(required = false) String email,
-                                            @RequestParam(defaultValue = "0") int page,
-                                            @RequestParam(defaultValue = "10") int size,
-                                            @RequestParam(defaultValue = "id") String sortField,
-                                            @RequestParam(defaultValue = "ASC") String sortDirection) {
-        return userService.searchUsers(birthDate, phone, name, email, page, size, sortField, sortDirection);
+    public ResponseEntity<List<UserSummaryDto>> searchUsers(@RequestParam(required = false) String name,
+                                                            @RequestParam(required = false) Integer birthDate,
+                                                            @RequestParam(required = false) String phone,
+                                                            @RequestParam(required = false) String email,
+                                                            @RequestParam(defaultValue = "0") int page,
+                                                            @RequestParam(defaultValue = "10") int size,
+                                                            @RequestParam(defaultValue = "id") String sortField,
+                                                            @RequestParam(defaultValue = "ASC") String sortDirection,
+                                                            @RequestParam(required = false) String after) {
+        if (after == null) {
+            return ResponseEntity.ok(userService.searchUsers(birthDate, phone, name, email, page, size, sortField, sortDirection));
+        }
+        UserScrollDto scroll = userService.scrollUsers(birthDate, phone, name, email, after, size, sortField, sortDirection);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (scroll.getNext() != null) {
+            response.header(NEXT_CURSOR_HEADER, scroll.getNext());
+        }
+        return response.body(scroll.getUsers());
     }
 
     @Operation(
-            summary = "Get a user by id."
+            summary = "Get a user by id.",
+            description = "Responses carry an ETag; send it back in If-None-Match to get 304 while the user is unchanged.",
+            responses = @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = UserSummaryDto.class)))
     )
+    @QueryBudget(statements = 2)
     @GetMapping("/{id}")
-    public ResponseEntity<UserSummaryDto> getUserById(@PathVariable Long id) {
-        return ResponseEntity.ok(userService.getOneUserById(id));
+    public ResponseEntity<byte[]> getUserById(@PathVariable Long id,
+                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = userResponseCache.currentEtag(id);
+        if (UserResponseCache.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        UserResponseCache.UserResponse response = userResponseCache.get(id, etag);
+        return ResponseEntity.ok()
+                .eTag(response.getEtag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(response.getBody());
     }
 
     @Operation(
             summary = "Send money endpoint.",
-            description = "Wanted money and receiverId should be added in param."
+            description = "Wanted money and receiverId should be added in param. " +
+                    "Retries carrying the same Idempotency-Key header get the first response back without moving money again."
     )
+    @QueryBudget(statements = 5)
     @PatchMapping("/account")
     public ResponseEntity<UserSummaryDto> editAccount(
             @AuthenticationPrincipal UserDto userDto,
             @RequestParam BigDecimal money,
-            @RequestParam Long receiverId) {
-        return ResponseEntity.ok(userService.sendMoney(userDto, money, receiverId));
+            @RequestParam Long receiverId,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return ResponseEntity.ok(userService.sendMoney(userDto, money, receiverId, idempotencyKey));
+    }
+
+    @Operation(
+            summary = "Send money to many receivers.",
+            description = "List of receiverId and amount pairs should be added as JSON (BatchTransferDto) body. " +
+                    "The total is checked against the balance once and every pair gets its own result."
+    )
+    @PostMapping("/account/batch")
+    public ResponseEntity<BatchTransferResultDto> editAccountBatch(
+            @AuthenticationPrincipal UserDto userDto,
+            @RequestBody BatchTransferDto batchTransferDto) {
+        return ResponseEntity.ok(batchTransferService.sendMoneyBatch(userDto, batchTransferDto.getTransfers()));
     }
 
     @Operation(
@@ -0,0 +1,18 @@
+package dev.aziz.bankingservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class BatchTransferDto {
+
+    private List<TransferItemDto> transfers;
+
+}
@@ -0,0 +1,25 @@
+package dev.aziz.bankingservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class BatchTransferResultDto {
+
+    private int completed;
+    private int rejected;
+    private BigDecimal total;
+    private BigDecimal account;
+    private long durationMillis;
+    private long itemsPerSecond;
+    private List<TransferItemResultDto> results;
+
+}
@@ -0,0 +1,19 @@
+package dev.aziz.bankingservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class TransferItemDto {
+
+    private Long receiverId;
+    private BigDecimal amount;
+
+}
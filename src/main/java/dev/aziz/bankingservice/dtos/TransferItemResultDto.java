@@ -0,0 +1,21 @@
+package dev.aziz.bankingservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class TransferItemResultDto {
+
+    private Long receiverId;
+    private BigDecimal amount;
+    private boolean completed;
+    private String message;
+
+}
@@ -0,0 +1,19 @@
+package dev.aziz.bankingservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class UserScrollDto {
+
+    private List<UserSummaryDto> users;
+    private String next;
+
+}
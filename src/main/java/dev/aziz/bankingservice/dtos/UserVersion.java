@@ -0,0 +1,18 @@
+package dev.aziz.bankingservice.dtos;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * The columns that decide what {@code GET /users/{id}} returns, read without loading the user.
+ */
+public interface UserVersion {
+
+    Long getVersion();
+
+    BigDecimal getAccount();
+
+    BigDecimal getInitialDeposit();
+
+    Instant getLastAccruedAt();
+}
@@ -0,0 +1,32 @@
+package dev.aziz.bankingservice.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "accrual_checkpoint",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"run_id", "range_start"}))
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AccrualCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "run_id", nullable = false)
+    private Long runId;
+
+    @Column(name = "range_start", nullable = false)
+    private Long rangeStart;
+
+    @Column(name = "range_end", nullable = false)
+    private Long rangeEnd;
+
+    private Instant completedAt;
+}
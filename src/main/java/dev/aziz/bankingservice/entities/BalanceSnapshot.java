@@ -0,0 +1,34 @@
+package dev.aziz.bankingservice.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "balance_snapshot",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "seq"}))
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BalanceSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long seq;
+
+    @Column(precision = 15, scale = 3, nullable = false)
+    private BigDecimal balance;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
@@ -5,6 +5,8 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
 
+import java.util.Locale;
+
 @Getter
 @Setter
 @Entity
@@ -23,6 +25,10 @@ public class Email {
     @Column(unique = true)
     private String name;
 
+    // Lowercased name; uniqueness and lookups go through this column.
+    @Column(unique = true, nullable = false)
+    private String nameKey;
+
     @ManyToOne
     @JoinColumn(name = "user_id")
     private User user;
@@ -31,4 +37,14 @@ public class Email {
     public User getUser() {
         return user;
     }
+
+    @PrePersist
+    @PreUpdate
+    protected void updateNameKey() {
+        nameKey = keyOf(name);
+    }
+
+    public static String keyOf(String name) {
+        return name == null ? null : name.trim().toLowerCase(Locale.ROOT);
+    }
 }
@@ -0,0 +1,36 @@
+package dev.aziz.bankingservice.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "idempotency_key",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "idempotency_key"}))
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class IdempotencyKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "idempotency_key", nullable = false)
+    private String key;
+
+    @Column(nullable = false)
+    private String requestHash;
+
+    @Column(columnDefinition = "text")
+    private String response;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+}
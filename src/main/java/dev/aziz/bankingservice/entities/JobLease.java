@@ -0,0 +1,27 @@
+package dev.aziz.bankingservice.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.*;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "job_lease")
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class JobLease {
+
+    @Id
+    private String name;
+
+    private String owner;
+
+    @Column(nullable = false)
+    private Instant leasedUntil;
+}
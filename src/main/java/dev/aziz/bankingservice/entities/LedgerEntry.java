@@ -0,0 +1,43 @@
+package dev.aziz.bankingservice.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "ledger_entry",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "seq"}))
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long seq;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private LedgerEntryType type;
+
+    @Column(precision = 15, scale = 3, nullable = false)
+    private BigDecimal amount;
+
+    @Column(precision = 15, scale = 3, nullable = false)
+    private BigDecimal balanceAfter;
+
+    private Long counterpartyId;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,8 @@
+package dev.aziz.bankingservice.entities;
+
+public enum LedgerEntryType {
+    DEPOSIT,
+    TRANSFER_DEBIT,
+    TRANSFER_CREDIT,
+    ACCRUAL
+}
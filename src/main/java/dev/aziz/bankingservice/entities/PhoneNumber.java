@@ -24,6 +24,10 @@ public class PhoneNumber {
     @Column(unique = true)
     private String number;
 
+    // Digits of the number; "7 999 1234567" and "79991234567" share one key.
+    @Column(unique = true, nullable = false)
+    private Long numberKey;
+
     @ManyToOne
     @JoinColumn(name = "user_id")
     private User user;
@@ -32,4 +36,24 @@ public class PhoneNumber {
     public User getUser() {
         return user;
     }
+
+    @PrePersist
+    @PreUpdate
+    protected void updateNumberKey() {
+        numberKey = keyOf(number);
+    }
+
+    /**
+     * Digits-only key of a phone number, or null if it has no digits or more than a long can hold.
+     */
+    public static Long keyOf(String number) {
+        if (number == null) {
+            return null;
+        }
+        String digits = number.replaceAll("\\D", "");
+        if (digits.isEmpty() || digits.length() > 18) {
+            return null;
+        }
+        return Long.valueOf(digits);
+    }
 }
@@ -0,0 +1,28 @@
+package dev.aziz.bankingservice.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.*;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "revoked_token")
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RevokedToken {
+
+    @Id
+    private String jti;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    @Column(nullable = false)
+    private Instant revokedAt;
+}
@@ -5,8 +5,10 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -47,9 +49,18 @@ public class User {
     @Positive
     private BigDecimal initialDeposit;
 
+    private Instant lastAccruedAt;
+
+    private Long ledgerSeq;
+
+    @Version
+    private Long version;
+
+    @BatchSize(size = 1000)
     @OneToMany(mappedBy = "user", fetch = FetchType.EAGER, cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Email> emails;
 
+    @BatchSize(size = 1000)
     @OneToMany(mappedBy = "user", fetch = FetchType.EAGER, cascade = CascadeType.ALL, orphanRemoval = true)
     private List<PhoneNumber> phoneNumbers;
 
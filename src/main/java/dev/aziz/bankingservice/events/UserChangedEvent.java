@@ -0,0 +1,20 @@
+package dev.aziz.bankingservice.events;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class UserChangedEvent {
+
+    private final Long id;
+    private final String login;
+
+    public static UserChangedEvent allUsers() {
+        return new UserChangedEvent(null, null);
+    }
+
+    public boolean isAllUsers() {
+        return login == null;
+    }
+}
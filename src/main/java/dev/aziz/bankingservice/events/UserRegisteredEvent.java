@@ -0,0 +1,12 @@
+package dev.aziz.bankingservice.events;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class UserRegisteredEvent {
+
+    private final Long id;
+    private final String login;
+}
@@ -4,9 +4,13 @@ import dev.aziz.bankingservice.dtos.SignUpDto;
 import dev.aziz.bankingservice.dtos.UserDto;
 import dev.aziz.bankingservice.dtos.UserSummaryDto;
 import dev.aziz.bankingservice.entities.User;
+import dev.aziz.bankingservice.services.InterestCalculator;
+import org.mapstruct.AfterMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
 
+import java.time.Instant;
 import java.util.List;
 
 @Mapper(componentModel = "spring")
@@ -22,4 +26,14 @@ public interface UserMapper {
     List<UserSummaryDto> usersToUserSummaryDtos(List<User> users);
 
     UserSummaryDto userToUserSummaryDto(User user);
+
+    @AfterMapping
+    default void accrueInterest(User user, @MappingTarget UserDto userDto) {
+        userDto.setAccount(InterestCalculator.accruedBalance(user, Instant.now()));
+    }
+
+    @AfterMapping
+    default void accrueInterest(User user, @MappingTarget UserSummaryDto userSummaryDto) {
+        userSummaryDto.setAccount(InterestCalculator.accruedBalance(user, Instant.now()));
+    }
 }
@@ -0,0 +1,33 @@
+package dev.aziz.bankingservice.repositories;
+
+import dev.aziz.bankingservice.entities.AccrualCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AccrualCheckpointRepository extends JpaRepository<AccrualCheckpoint, Long> {
+
+    boolean existsByRunId(Long runId);
+
+    @Query("SELECT MIN(c.runId) FROM AccrualCheckpoint c WHERE c.completedAt IS NULL")
+    Optional<Long> findUnfinishedRunId();
+
+    List<AccrualCheckpoint> findAllByRunIdAndCompletedAtIsNull(Long runId);
+
+    @Modifying
+    @Query("UPDATE AccrualCheckpoint c SET c.completedAt = :now WHERE c.id = :id AND c.completedAt IS NULL")
+    int markCompleted(@Param("id") Long id, @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM AccrualCheckpoint c WHERE c.runId < :runId AND c.completedAt IS NOT NULL")
+    int deleteCompletedBefore(@Param("runId") Long runId);
+}
@@ -11,9 +11,9 @@ import java.util.Optional;
 @Repository
 public interface EmailRepository extends JpaRepository<Email, Long> {
 
-    Optional<Email> findByName(String email);
+    Optional<Email> findByNameKey(String nameKey);
 
-    boolean existsEmailByName(String name);
+    boolean existsEmailByNameKey(String nameKey);
 
     List<Email> findEmailsByUserId(Long id);
 
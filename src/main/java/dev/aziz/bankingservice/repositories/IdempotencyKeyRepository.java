@@ -0,0 +1,23 @@
+package dev.aziz.bankingservice.repositories;
+
+import dev.aziz.bankingservice.entities.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
+
+    Optional<IdempotencyKey> findByUserIdAndKey(Long userId, String key);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyKey k WHERE k.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -0,0 +1,24 @@
+package dev.aziz.bankingservice.repositories;
+
+import dev.aziz.bankingservice.entities.JobLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE JobLease l SET l.owner = :owner, l.leasedUntil = :until " +
+            "WHERE l.name = :name AND (l.leasedUntil < :now OR l.owner = :owner)")
+    int tryAcquire(@Param("name") String name,
+                   @Param("owner") String owner,
+                   @Param("now") Instant now,
+                   @Param("until") Instant until);
+}
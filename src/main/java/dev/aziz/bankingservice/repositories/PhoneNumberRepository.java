@@ -11,9 +11,9 @@ import java.util.Optional;
 @Repository
 public interface PhoneNumberRepository extends JpaRepository<PhoneNumber, Long> {
 
-    Optional<PhoneNumber> findByNumber(String number);
+    Optional<PhoneNumber> findByNumberKey(Long numberKey);
 
-    boolean existsPhoneNumberByNumber(String number);
+    boolean existsPhoneNumberByNumberKey(Long numberKey);
 
     List<PhoneNumber> findPhoneNumbersByUserId(Long id);
 }
@@ -0,0 +1,25 @@
+package dev.aziz.bankingservice.repositories;
+
+import dev.aziz.bankingservice.entities.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    List<RevokedToken> findAllByExpiresAtAfter(Instant now);
+
+    List<RevokedToken> findAllByRevokedAtAfterAndExpiresAtAfter(Instant revokedAt, Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
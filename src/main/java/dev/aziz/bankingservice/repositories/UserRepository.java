@@ -1,42 +1,52 @@
 package dev.aziz.bankingservice.repositories;
 
+import dev.aziz.bankingservice.dtos.UserVersion;
 import dev.aziz.bankingservice.entities.User;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByLogin(String login);
 
-    @Query("SELECT DISTINCT u FROM User u " +
-            "LEFT JOIN u.phoneNumbers p " +
-            "LEFT JOIN u.emails e " +
-            "WHERE (:birthYear IS NULL OR EXTRACT(YEAR FROM u.birthDate) > :birthYear) " +
-            "AND (:phone IS NULL OR p.number = :phone) " +
-            "AND (:login IS NULL OR u.login LIKE CONCAT(:login, '%')) " +
-            "AND (:email IS NULL OR e.name = :email)")
-    Page<User> searchUsers(@Param("birthYear") Integer birthYear,
-                           @Param("phone") String phone,
-                           @Param("login") String login,
-                           @Param("email") String email,
-                           Pageable pageable);
-
-    @Query("SELECT DISTINCT u FROM User u " +
-            "LEFT JOIN u.phoneNumbers p " +
-            "LEFT JOIN u.emails e " +
-            "WHERE (:birthYear IS NULL OR EXTRACT(YEAR FROM u.birthDate) > :birthYear) " +
-            "AND (:phone IS NULL OR p.number = :phone) " +
-            "AND (:email IS NULL OR e.name = :email)")
-    Page<User> searchUsersWithoutLogin(@Param("birthYear") Integer birthYear,
-                                       @Param("phone") String phone,
-                                       @Param("email") String email,
-                                       Pageable pageable);
+    boolean existsByLogin(String login);
+
+    // Contact edits do not dirty the user row itself, so its version is bumped explicitly on commit.
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("SELECT u FROM User u WHERE u.login = :login")
+    Optional<User> findByLoginForChange(@Param("login") String login);
+
+    @Query("SELECT u.version AS version, u.account AS account, u.initialDeposit AS initialDeposit, " +
+            "u.lastAccruedAt AS lastAccruedAt FROM User u WHERE u.id = :id")
+    Optional<UserVersion> findVersionById(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.id IN :ids ORDER BY u.id")
+    List<User> findAllByIdInForUpdate(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query("UPDATE User u SET u.lastAccruedAt = :now WHERE u.lastAccruedAt IS NULL")
+    int initLastAccruedAt(@Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
 
 }
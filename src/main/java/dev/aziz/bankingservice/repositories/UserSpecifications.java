@@ -0,0 +1,107 @@
+package dev.aziz.bankingservice.repositories;
+
+import dev.aziz.bankingservice.entities.Email;
+import dev.aziz.bankingservice.entities.PhoneNumber;
+import dev.aziz.bankingservice.entities.User;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+public final class UserSpecifications {
+
+    private UserSpecifications() {
+    }
+
+    public static Specification<User> search(Integer birthYear, String phone, String login, String email) {
+        return Specification.where(bornAfterYear(birthYear))
+                .and(hasPhoneNumber(phone))
+                .and(loginStartsWith(login))
+                .and(hasEmail(email));
+    }
+
+    /**
+     * "Born after year Y" as {@code birth_date >= Y+1-01-01}, a plain range on the column so it can
+     * be answered from {@code idx_app_user_birth_date}.
+     */
+    public static Specification<User> bornAfterYear(Integer birthYear) {
+        if (birthYear == null) {
+            return null;
+        }
+        LocalDate from = LocalDate.of(birthYear + 1, 1, 1);
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("birthDate"), from);
+    }
+
+    public static Specification<User> hasPhoneNumber(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        Long numberKey = PhoneNumber.keyOf(phone);
+        if (numberKey == null) {
+            return (root, query, cb) -> cb.disjunction();
+        }
+        return (root, query, cb) -> {
+            Subquery<Long> subquery = query.subquery(Long.class);
+            var phoneNumber = subquery.from(PhoneNumber.class);
+            subquery.select(phoneNumber.get("id"))
+                    .where(cb.equal(phoneNumber.get("user"), root), cb.equal(phoneNumber.get("numberKey"), numberKey));
+            return cb.exists(subquery);
+        };
+    }
+
+    public static Specification<User> loginStartsWith(String login) {
+        if (login == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.like(root.get("login"), escapeLike(login) + "%", '\\');
+    }
+
+    public static Specification<User> hasEmail(String email) {
+        if (email == null) {
+            return null;
+        }
+        String nameKey = Email.keyOf(email);
+        return (root, query, cb) -> {
+            Subquery<Long> subquery = query.subquery(Long.class);
+            var emailRoot = subquery.from(Email.class);
+            subquery.select(emailRoot.get("id"))
+                    .where(cb.equal(emailRoot.get("user"), root), cb.equal(emailRoot.get("nameKey"), nameKey));
+            return cb.exists(subquery);
+        };
+    }
+
+    public static Specification<User> idIn(Collection<Long> ids) {
+        return (root, query, cb) -> ids.isEmpty() ? cb.disjunction() : root.get("id").in(ids);
+    }
+
+    /**
+     * Rows strictly after {@code (key, id)} in {@code ORDER BY field, id}. The extra inclusive bound
+     * on the key gives Postgres an index range to scan instead of evaluating the OR row by row.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<User> after(String field, Sort.Direction direction, Comparable key, Long id) {
+        return (root, query, cb) -> {
+            Expression<Comparable> path = root.get(field);
+            Expression<Long> idPath = root.get("id");
+            if (direction.isAscending()) {
+                if ("id".equals(field)) {
+                    return cb.greaterThan(idPath, id);
+                }
+                return cb.and(cb.greaterThanOrEqualTo(path, key),
+                        cb.or(cb.greaterThan(path, key), cb.greaterThan(idPath, id)));
+            }
+            if ("id".equals(field)) {
+                return cb.lessThan(idPath, id);
+            }
+            return cb.and(cb.lessThanOrEqualTo(path, key),
+                    cb.or(cb.lessThan(path, key), cb.lessThan(idPath, id)));
+        };
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
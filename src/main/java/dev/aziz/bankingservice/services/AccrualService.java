@@ -0,0 +1,220 @@
+package dev.aziz.bankingservice.services;
+
+import dev.aziz.bankingservice.entities.AccrualCheckpoint;
+import dev.aziz.bankingservice.entities.JobLease;
+import dev.aziz.bankingservice.entities.LedgerEntry;
+import dev.aziz.bankingservice.entities.LedgerEntryType;
+import dev.aziz.bankingservice.entities.User;
+import dev.aziz.bankingservice.events.UserChangedEvent;
+import dev.aziz.bankingservice.repositories.AccrualCheckpointRepository;
+import dev.aziz.bankingservice.repositories.JobLeaseRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Optional sweep that materializes lazily accrued interest into {@code app_user}. Balances are
+ * already correct on read without it; it only keeps stored values from drifting far behind.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "accrual", name = "sweep-enabled", havingValue = "true")
+public class AccrualService {
+
+    private static final String LEASE_NAME = "accrual";
+
+    private static final String NEXT_CHUNK_END_SQL =
+            "SELECT MAX(id) FROM (SELECT id FROM app_user WHERE id > ? ORDER BY id LIMIT ?) chunk";
+
+    private static final String SELECT_ACCRUING_SQL =
+            "SELECT id, account, initial_deposit, last_accrued_at, ledger_seq FROM app_user " +
+            "WHERE id > ? AND id <= ? AND account < initial_deposit * 2.07 AND last_accrued_at <= ? " +
+            "FOR UPDATE";
+
+    private static final String UPDATE_ACCRUED_SQL =
+            "UPDATE app_user SET account = ?, last_accrued_at = ?, ledger_seq = ?, version = version + 1 WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JobLeaseRepository jobLeaseRepository;
+    private final AccrualCheckpointRepository accrualCheckpointRepository;
+    private final LedgerService ledgerService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${accrual.chunk-size:5000}")
+    private int chunkSize;
+
+    @Value("${accrual.workers:4}")
+    private int workers;
+
+    @Value("${accrual.lease-ttl:5m}")
+    private Duration leaseTtl;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicLong lastRunRows = new AtomicLong();
+    private final AtomicLong lastRunMillis = new AtomicLong();
+    private ExecutorService workerPool;
+
+    @PostConstruct
+    protected void init() {
+        workerPool = Executors.newFixedThreadPool(workers);
+        Gauge.builder("accrual.last.rows", lastRunRows, AtomicLong::get)
+                .description("Accounts updated by the last accrual run")
+                .register(meterRegistry);
+        TimeGauge.builder("accrual.last.duration", lastRunMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Duration of the last accrual run")
+                .register(meterRegistry);
+        log.info("Accrual node id is {}.", nodeId);
+    }
+
+    @PreDestroy
+    protected void shutdown() {
+        workerPool.shutdown();
+    }
+
+    @Scheduled(fixedRate = 60000)
+    public void incrementUserAccount() {
+        if (!tryAcquireLease()) {
+            log.debug("Accrual lease is held by another node. Skipping increment operation.");
+            return;
+        }
+
+        // Each minute is one accrual period; a crashed run is finished before a new one is planned.
+        long runId = accrualCheckpointRepository.findUnfinishedRunId()
+                .orElse(Instant.now().getEpochSecond() / 60);
+        if (!accrualCheckpointRepository.existsByRunId(runId) && planRun(runId) == 0) {
+            log.info("No users found. Skipping increment operation.");
+            return;
+        }
+
+        List<AccrualCheckpoint> pending = accrualCheckpointRepository.findAllByRunIdAndCompletedAtIsNull(runId);
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        long startedAt = System.nanoTime();
+        long updated = processRanges(pending);
+        accrualCheckpointRepository.deleteCompletedBefore(runId);
+
+        if (updated > 0) {
+            eventPublisher.publishEvent(UserChangedEvent.allUsers());
+        }
+        long elapsedMillis = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+        lastRunRows.set(updated);
+        lastRunMillis.set(elapsedMillis);
+        meterRegistry.counter("accrual.rows").increment(updated);
+        log.info("Accrual run {} updated {} accounts in {} ranges, took {} ms ({} rows/sec).",
+                runId, updated, pending.size(), elapsedMillis, updated * 1000 / elapsedMillis);
+    }
+
+    private boolean tryAcquireLease() {
+        if (!jobLeaseRepository.existsById(LEASE_NAME)) {
+            try {
+                jobLeaseRepository.save(JobLease.builder().name(LEASE_NAME).leasedUntil(Instant.EPOCH).build());
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Accrual lease row was created by another node.");
+            }
+        }
+        Instant now = Instant.now();
+        return jobLeaseRepository.tryAcquire(LEASE_NAME, nodeId, now, now.plus(leaseTtl)) == 1;
+    }
+
+    private int planRun(long runId) {
+        List<AccrualCheckpoint> ranges = new ArrayList<>();
+        long lastId = 0;
+        Long rangeEnd;
+        while ((rangeEnd = jdbcTemplate.queryForObject(NEXT_CHUNK_END_SQL, Long.class, lastId, chunkSize)) != null) {
+            ranges.add(AccrualCheckpoint.builder().runId(runId).rangeStart(lastId).rangeEnd(rangeEnd).build());
+            lastId = rangeEnd;
+        }
+        accrualCheckpointRepository.saveAll(ranges);
+        return ranges.size();
+    }
+
+    private long processRanges(List<AccrualCheckpoint> pending) {
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (AccrualCheckpoint checkpoint : pending) {
+            tasks.add(() -> processRange(checkpoint));
+        }
+
+        long updated = 0;
+        try {
+            for (Future<Integer> result : workerPool.invokeAll(tasks)) {
+                updated += result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("Accrual range failed, it will be resumed on the next run.", e.getCause());
+        }
+        return updated;
+    }
+
+    private int processRange(AccrualCheckpoint checkpoint) {
+        Integer rows = transactionTemplate.execute(status -> {
+            // Claiming the checkpoint and applying the increment commit together, so a range is never applied twice.
+            if (accrualCheckpointRepository.markCompleted(checkpoint.getId(), Instant.now()) == 0) {
+                return 0;
+            }
+            return accrueRange(checkpoint.getRangeStart(), checkpoint.getRangeEnd());
+        });
+        return rows == null ? 0 : rows;
+    }
+
+    private int accrueRange(long from, long to) {
+        Instant now = Instant.now();
+        List<User> accrued = jdbcTemplate.query(SELECT_ACCRUING_SQL, (rs, rowNum) -> User.builder()
+                .id(rs.getLong("id"))
+                .account(rs.getBigDecimal("account"))
+                .initialDeposit(rs.getBigDecimal("initial_deposit"))
+                .lastAccruedAt(rs.getTimestamp("last_accrued_at").toInstant())
+                .ledgerSeq(rs.getLong("ledger_seq"))
+                .build(), from, to, Timestamp.from(now.minus(InterestCalculator.PERIOD)));
+
+        List<LedgerEntry> entries = new ArrayList<>();
+        for (User user : accrued) {
+            BigDecimal before = user.getAccount();
+            InterestCalculator.accrue(user, now);
+            if (before.compareTo(user.getAccount()) != 0) {
+                entries.add(LedgerService.entry(user, LedgerEntryType.ACCRUAL, user.getAccount().subtract(before), null, now));
+            }
+        }
+        jdbcTemplate.batchUpdate(UPDATE_ACCRUED_SQL, accrued, accrued.size(), (ps, user) -> {
+            ps.setBigDecimal(1, user.getAccount());
+            ps.setTimestamp(2, Timestamp.from(user.getLastAccruedAt()));
+            ps.setLong(3, user.getLedgerSeq());
+            ps.setLong(4, user.getId());
+        });
+        ledgerService.record(entries);
+        return accrued.size();
+    }
+}
@@ -0,0 +1,205 @@
+package dev.aziz.bankingservice.services;
+
+import dev.aziz.bankingservice.dtos.BatchTransferResultDto;
+import dev.aziz.bankingservice.dtos.TransferItemDto;
+import dev.aziz.bankingservice.dtos.TransferItemResultDto;
+import dev.aziz.bankingservice.dtos.UserDto;
+import dev.aziz.bankingservice.entities.LedgerEntry;
+import dev.aziz.bankingservice.entities.LedgerEntryType;
+import dev.aziz.bankingservice.entities.User;
+import dev.aziz.bankingservice.events.UserChangedEvent;
+import dev.aziz.bankingservice.exceptions.AppException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Pays many receivers from one sender in a single transaction: one locking read for all
+ * accounts, one JDBC batch for the balance updates and one for the ledger entries.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@Service
+public class BatchTransferService {
+
+    private static final String LOCK_ACCOUNTS_SQL =
+            "SELECT id, login, account, initial_deposit, last_accrued_at, ledger_seq FROM app_user " +
+            "WHERE id IN (:ids) ORDER BY id FOR UPDATE";
+
+    private static final String UPDATE_ACCOUNT_SQL =
+            "UPDATE app_user SET account = ?, last_accrued_at = ?, ledger_seq = ?, version = version + 1 WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LedgerService ledgerService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${transfer.max-attempts:3}")
+    private int transferMaxAttempts;
+
+    @Value("${transfer.batch.max-items:5000}")
+    private int maxItems;
+
+    public BatchTransferResultDto sendMoneyBatch(UserDto userDto, List<TransferItemDto> transfers) {
+        if (transfers == null || transfers.isEmpty()) {
+            throw new AppException("Transfers should not be empty.", HttpStatus.BAD_REQUEST);
+        }
+        if (transfers.size() > maxItems) {
+            throw new AppException("A batch can contain at most " + maxItems + " transfers.", HttpStatus.BAD_REQUEST);
+        }
+
+        long startedAt = System.nanoTime();
+        BatchTransferResultDto result;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                result = transactionTemplate.execute(status -> execute(userDto, transfers));
+                break;
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= transferMaxAttempts) {
+                    log.warn("Batch transfer from {} failed after {} attempts.", userDto.getLogin(), attempt);
+                    throw new AppException("Transfer could not be completed, please retry.", HttpStatus.CONFLICT);
+                }
+                meterRegistry.counter("transfer.retries").increment();
+            }
+        }
+
+        long elapsedMillis = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+        result.setDurationMillis(elapsedMillis);
+        result.setItemsPerSecond(transfers.size() * 1000L / elapsedMillis);
+        meterRegistry.counter("transfer.batch.items").increment(transfers.size());
+        log.info("User {} sent a batch of {} transfers ({} rejected), took {} ms ({} items/sec).",
+                userDto.getLogin(), transfers.size(), result.getRejected(), elapsedMillis, result.getItemsPerSecond());
+        return result;
+    }
+
+    private BatchTransferResultDto execute(UserDto userDto, List<TransferItemDto> transfers) {
+        Map<Long, User> accounts = lockAccounts(userDto.getId(), transfers);
+        User sender = accounts.get(userDto.getId());
+        if (sender == null) {
+            throw new AppException("User by " + userDto.getLogin() + " not found", HttpStatus.NOT_FOUND);
+        }
+
+        Instant now = Instant.now();
+        List<LedgerEntry> entries = new ArrayList<>();
+        for (User account : accounts.values()) {
+            BigDecimal before = account.getAccount();
+            InterestCalculator.accrue(account, now);
+            if (before.compareTo(account.getAccount()) != 0) {
+                entries.add(LedgerService.entry(account, LedgerEntryType.ACCRUAL, account.getAccount().subtract(before), null, now));
+            }
+        }
+
+        List<TransferItemResultDto> results = new ArrayList<>(transfers.size());
+        BigDecimal total = BigDecimal.ZERO;
+        for (TransferItemDto transfer : transfers) {
+            String rejection = validate(transfer, sender, accounts);
+            results.add(TransferItemResultDto.builder()
+                    .receiverId(transfer.getReceiverId())
+                    .amount(transfer.getAmount())
+                    .completed(rejection == null)
+                    .message(rejection)
+                    .build());
+            if (rejection == null) {
+                total = total.add(transfer.getAmount());
+            }
+        }
+        if (sender.getAccount().compareTo(total) < 0) {
+            throw new AppException("You do not have enough money.", HttpStatus.BAD_REQUEST);
+        }
+
+        int completed = 0;
+        for (TransferItemResultDto result : results) {
+            if (!result.isCompleted()) {
+                continue;
+            }
+            User receiver = accounts.get(result.getReceiverId());
+            sender.setAccount(sender.getAccount().subtract(result.getAmount()));
+            entries.add(LedgerService.entry(sender, LedgerEntryType.TRANSFER_DEBIT, result.getAmount().negate(), receiver.getId(), now));
+            receiver.setAccount(receiver.getAccount().add(result.getAmount()));
+            entries.add(LedgerService.entry(receiver, LedgerEntryType.TRANSFER_CREDIT, result.getAmount(), sender.getId(), now));
+            completed++;
+        }
+
+        List<User> touched = new ArrayList<>(accounts.values());
+        jdbcTemplate.batchUpdate(UPDATE_ACCOUNT_SQL, touched, touched.size(), (ps, account) -> {
+            ps.setBigDecimal(1, account.getAccount());
+            // Accounts created before lazy accrual keep a NULL timestamp until the startup backfill stamps them.
+            if (account.getLastAccruedAt() == null) {
+                ps.setNull(2, Types.TIMESTAMP_WITH_TIMEZONE);
+            } else {
+                ps.setTimestamp(2, Timestamp.from(account.getLastAccruedAt()));
+            }
+            ps.setLong(3, account.getLedgerSeq());
+            ps.setLong(4, account.getId());
+        });
+        ledgerService.record(entries);
+        touched.forEach(account -> eventPublisher.publishEvent(new UserChangedEvent(account.getId(), account.getLogin())));
+
+        return BatchTransferResultDto.builder()
+                .completed(completed)
+                .rejected(results.size() - completed)
+                .total(total)
+                .account(sender.getAccount())
+                .results(results)
+                .build();
+    }
+
+    private Map<Long, User> lockAccounts(Long senderId, List<TransferItemDto> transfers) {
+        // Locked in ascending id order, the same order single transfers use.
+        Set<Long> ids = new TreeSet<>();
+        ids.add(senderId);
+        for (TransferItemDto transfer : transfers) {
+            if (transfer.getReceiverId() != null) {
+                ids.add(transfer.getReceiverId());
+            }
+        }
+        Map<Long, User> accounts = new LinkedHashMap<>();
+        namedParameterJdbcTemplate.query(LOCK_ACCOUNTS_SQL, Map.of("ids", ids), rs -> {
+            Timestamp lastAccruedAt = rs.getTimestamp("last_accrued_at");
+            User account = User.builder()
+                    .id(rs.getLong("id"))
+                    .login(rs.getString("login"))
+                    .account(rs.getBigDecimal("account"))
+                    .initialDeposit(rs.getBigDecimal("initial_deposit"))
+                    .lastAccruedAt(lastAccruedAt == null ? null : lastAccruedAt.toInstant())
+                    .ledgerSeq(rs.getLong("ledger_seq"))
+                    .build();
+            accounts.put(account.getId(), account);
+        });
+        return accounts;
+    }
+
+    private String validate(TransferItemDto transfer, User sender, Map<Long, User> accounts) {
+        if (transfer.getAmount() == null || transfer.getAmount().signum() <= 0) {
+            return "Amount should be positive.";
+        }
+        if (transfer.getReceiverId() == null || !accounts.containsKey(transfer.getReceiverId())) {
+            return "User by id " + transfer.getReceiverId() + " not found";
+        }
+        if (transfer.getReceiverId().equals(sender.getId())) {
+            return "You cannot send money to yourself.";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,156 @@
+package dev.aziz.bankingservice.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.aziz.bankingservice.dtos.UserSummaryDto;
+import dev.aziz.bankingservice.entities.IdempotencyKey;
+import dev.aziz.bankingservice.exceptions.AppException;
+import dev.aziz.bankingservice.repositories.IdempotencyKeyRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Remembers the response of every successful keyed transfer. Recent keys are answered from a
+ * bounded in-memory LRU; the {@code idempotency_key} table is the source of truth, and its unique
+ * constraint serializes concurrent requests that carry the same key.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${idempotency.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${idempotency.cache.max-size:100000}")
+    private long cacheMaxSize;
+
+    private Cache<String, StoredResponse> responses;
+
+    @PostConstruct
+    protected void init() {
+        responses = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "idempotency");
+    }
+
+    public static String requestHash(BigDecimal money, Long receiverId) {
+        return money.stripTrailingZeros().toPlainString() + ":" + receiverId;
+    }
+
+    public Optional<UserSummaryDto> findCached(Long userId, String key, String requestHash) {
+        validate(key);
+        StoredResponse stored = responses.getIfPresent(cacheKey(userId, key));
+        if (stored == null) {
+            return Optional.empty();
+        }
+        checkSameRequest(stored.requestHash(), requestHash);
+        return Optional.of(stored.response());
+    }
+
+    public Optional<UserSummaryDto> find(Long userId, String key, String requestHash) {
+        return idempotencyKeyRepository.findByUserIdAndKey(userId, key)
+                .filter(stored -> stored.getResponse() != null)
+                .map(stored -> {
+                    checkSameRequest(stored.getRequestHash(), requestHash);
+                    UserSummaryDto response = read(stored.getResponse());
+                    cache(userId, key, requestHash, response);
+                    return response;
+                });
+    }
+
+    /**
+     * Must run inside the transfer transaction: either returns the response of an earlier request
+     * with this key, or inserts the key so a concurrent duplicate blocks until this one commits.
+     */
+    public Optional<UserSummaryDto> claim(Long userId, String key, String requestHash) {
+        Optional<UserSummaryDto> stored = find(userId, key, requestHash);
+        if (stored.isEmpty()) {
+            idempotencyKeyRepository.saveAndFlush(IdempotencyKey.builder()
+                    .userId(userId)
+                    .key(key)
+                    .requestHash(requestHash)
+                    .expiresAt(Instant.now().plus(ttl))
+                    .build());
+        }
+        return stored;
+    }
+
+    public void complete(Long userId, String key, UserSummaryDto response) {
+        IdempotencyKey stored = idempotencyKeyRepository.findByUserIdAndKey(userId, key)
+                .orElseThrow(() -> new IllegalStateException("Idempotency key was not claimed"));
+        stored.setResponse(write(response));
+    }
+
+    public void cache(Long userId, String key, String requestHash, UserSummaryDto response) {
+        responses.put(cacheKey(userId, key), new StoredResponse(requestHash, response));
+    }
+
+    @Scheduled(fixedRateString = "${idempotency.sweep-rate:600000}")
+    public void sweep() {
+        int deleted = idempotencyKeyRepository.deleteExpired(Instant.now());
+        if (deleted > 0) {
+            log.info("Deleted {} expired idempotency keys.", deleted);
+        }
+    }
+
+    private void validate(String key) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new AppException("Idempotency-Key should be 1 to " + MAX_KEY_LENGTH + " characters.", HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    private void checkSameRequest(String storedHash, String requestHash) {
+        if (!storedHash.equals(requestHash)) {
+            throw new AppException("Idempotency-Key was already used for a different request.", HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+    }
+
+    private String cacheKey(Long userId, String key) {
+        return userId + ":" + key;
+    }
+
+    private String write(UserSummaryDto response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not store idempotent response", e);
+        }
+    }
+
+    private UserSummaryDto read(String response) {
+        try {
+            return objectMapper.readValue(response, UserSummaryDto.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read idempotent response", e);
+        }
+    }
+
+    private record StoredResponse(String requestHash, UserSummaryDto response) {
+    }
+}
@@ -0,0 +1,63 @@
+package dev.aziz.bankingservice.services;
+
+import dev.aziz.bankingservice.entities.User;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Closed form of the per-minute accrual: every elapsed period adds 5% to the balance until it
+ * reaches {@code initialDeposit * 2.07}.
+ */
+public final class InterestCalculator {
+
+    public static final Duration PERIOD = Duration.ofMinutes(1);
+    public static final BigDecimal RATE = BigDecimal.valueOf(1.05);
+    public static final BigDecimal CAP_MULTIPLIER = BigDecimal.valueOf(2.07);
+
+    private static final int SCALE = 3;
+    private static final double LOG_RATE = Math.log(RATE.doubleValue());
+
+    private InterestCalculator() {
+    }
+
+    public static long elapsedPeriods(Instant lastAccruedAt, Instant now) {
+        if (lastAccruedAt == null || !now.isAfter(lastAccruedAt)) {
+            return 0;
+        }
+        return Duration.between(lastAccruedAt, now).toMillis() / PERIOD.toMillis();
+    }
+
+    public static BigDecimal accruedBalance(BigDecimal account, BigDecimal initialDeposit, long periods) {
+        if (periods <= 0 || account == null || initialDeposit == null || account.signum() <= 0) {
+            return account;
+        }
+        BigDecimal cap = initialDeposit.multiply(CAP_MULTIPLIER);
+        if (account.compareTo(cap) >= 0) {
+            return account;
+        }
+        double periodsToCap = Math.log(cap.doubleValue() / account.doubleValue()) / LOG_RATE;
+        if (periods > periodsToCap + 1) {
+            return cap;
+        }
+        BigDecimal grown = account.multiply(RATE.pow((int) periods, MathContext.DECIMAL64))
+                .setScale(SCALE, RoundingMode.HALF_UP);
+        return grown.min(cap);
+    }
+
+    public static BigDecimal accruedBalance(User user, Instant now) {
+        return accruedBalance(user.getAccount(), user.getInitialDeposit(), elapsedPeriods(user.getLastAccruedAt(), now));
+    }
+
+    public static void accrue(User user, Instant now) {
+        long periods = elapsedPeriods(user.getLastAccruedAt(), now);
+        if (periods == 0) {
+            return;
+        }
+        user.setAccount(accruedBalance(user.getAccount(), user.getInitialDeposit(), periods));
+        user.setLastAccruedAt(user.getLastAccruedAt().plus(PERIOD.multipliedBy(periods)));
+    }
+}
@@ -0,0 +1,120 @@
+package dev.aziz.bankingservice.services;
+
+import dev.aziz.bankingservice.entities.LedgerEntry;
+import dev.aziz.bankingservice.entities.LedgerEntryType;
+import dev.aziz.bankingservice.entities.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Append-only history of balance changes. Every account keeps its own entry sequence
+ * ({@code app_user.ledger_seq}) and a snapshot is taken every {@code ledger.snapshot-interval}
+ * entries, so a balance can be rebuilt from the latest snapshot plus the entries after it.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@Service
+public class LedgerService {
+
+    private static final String INSERT_ENTRY_SQL =
+            "INSERT INTO ledger_entry (user_id, seq, type, amount, balance_after, counterparty_id, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_SNAPSHOT_SQL =
+            "INSERT INTO balance_snapshot (user_id, seq, balance, created_at) VALUES (?, ?, ?, ?)";
+
+    private static final String BACKFILL_SNAPSHOTS_SQL =
+            "INSERT INTO balance_snapshot (user_id, seq, balance, created_at) " +
+            "SELECT id, 0, account, ? FROM app_user WHERE ledger_seq IS NULL";
+
+    private static final String BACKFILL_SEQ_SQL =
+            "UPDATE app_user SET ledger_seq = 0 WHERE ledger_seq IS NULL";
+
+    private static final String LATEST_SNAPSHOT_SQL =
+            "SELECT seq, balance FROM balance_snapshot WHERE user_id = ? ORDER BY seq DESC LIMIT 1";
+
+    private static final String TAIL_SUM_SQL =
+            "SELECT COALESCE(SUM(amount), 0) FROM ledger_entry WHERE user_id = ? AND seq > ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${ledger.snapshot-interval:100}")
+    private long snapshotInterval;
+
+    public static LedgerEntry entry(User user, LedgerEntryType type, BigDecimal amount,
+                                    Long counterpartyId, Instant createdAt) {
+        long seq = (user.getLedgerSeq() == null ? 0 : user.getLedgerSeq()) + 1;
+        user.setLedgerSeq(seq);
+        return LedgerEntry.builder()
+                .userId(user.getId())
+                .seq(seq)
+                .type(type)
+                .amount(amount)
+                .balanceAfter(user.getAccount())
+                .counterpartyId(counterpartyId)
+                .createdAt(createdAt)
+                .build();
+    }
+
+    public void record(List<LedgerEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_ENTRY_SQL, entries, entries.size(), (ps, entry) -> {
+            ps.setLong(1, entry.getUserId());
+            ps.setLong(2, entry.getSeq());
+            ps.setString(3, entry.getType().name());
+            ps.setBigDecimal(4, entry.getAmount());
+            ps.setBigDecimal(5, entry.getBalanceAfter());
+            if (entry.getCounterpartyId() == null) {
+                ps.setNull(6, Types.BIGINT);
+            } else {
+                ps.setLong(6, entry.getCounterpartyId());
+            }
+            ps.setTimestamp(7, Timestamp.from(entry.getCreatedAt()));
+        });
+
+        List<LedgerEntry> snapshots = entries.stream()
+                .filter(entry -> entry.getSeq() % snapshotInterval == 0)
+                .toList();
+        if (!snapshots.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SNAPSHOT_SQL, snapshots, snapshots.size(), (ps, entry) -> {
+                ps.setLong(1, entry.getUserId());
+                ps.setLong(2, entry.getSeq());
+                ps.setBigDecimal(3, entry.getBalanceAfter());
+                ps.setTimestamp(4, Timestamp.from(entry.getCreatedAt()));
+            });
+        }
+    }
+
+    public BigDecimal rebuildBalance(Long userId) {
+        List<Object[]> snapshot = jdbcTemplate.query(LATEST_SNAPSHOT_SQL,
+                (rs, rowNum) -> new Object[]{rs.getLong("seq"), rs.getBigDecimal("balance")}, userId);
+        long fromSeq = snapshot.isEmpty() ? 0 : (Long) snapshot.get(0)[0];
+        BigDecimal base = snapshot.isEmpty() ? BigDecimal.ZERO : (BigDecimal) snapshot.get(0)[1];
+        BigDecimal tail = jdbcTemplate.queryForObject(TAIL_SUM_SQL, BigDecimal.class, userId, fromSeq);
+        return base.add(tail);
+    }
+
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOpeningSnapshots() {
+        int backfilled = jdbcTemplate.update(BACKFILL_SNAPSHOTS_SQL, Timestamp.from(Instant.now()));
+        jdbcTemplate.update(BACKFILL_SEQ_SQL);
+        if (backfilled > 0) {
+            log.info("Took opening balance snapshots for {} existing users.", backfilled);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package dev.aziz.bankingservice.services;
+
+import dev.aziz.bankingservice.events.UserRegisteredEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Optional in-memory index of logins sorted for prefix lookups. A prefix resolves to the ids
+ * of matching users, so the search can fetch them by primary key instead of scanning with LIKE.
+ * The index is loaded once, extended as users register, and caught up from rows inserted by
+ * other instances; it never rebuilds from scratch. Callers fall back to the database whenever
+ * it is disabled, over its memory budget, or a prefix matches too many users.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@Service
+public class LoginPrefixIndex {
+
+    // Rough cost of one entry besides the login characters: skip list node and index levels,
+    // String and its byte array headers, boxed id.
+    static final long ENTRY_OVERHEAD_BYTES = 96;
+
+    // Identity ids may commit out of order, so catch-up rescans a little below the highest id seen.
+    private static final long CATCH_UP_OVERLAP = 1000;
+
+    private static final String LOAD_SQL = "SELECT id, login FROM app_user WHERE id > ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${search.login-index.enabled:false}")
+    private boolean enabled;
+
+    @Value("${search.login-index.max-size:64MB}")
+    private DataSize maxSize;
+
+    @Value("${search.login-index.max-matches:1000}")
+    private int maxMatches;
+
+    private final ConcurrentNavigableMap<String, Long> logins = new ConcurrentSkipListMap<>();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong maxId = new AtomicLong();
+    private volatile boolean ready;
+
+    @PostConstruct
+    protected void registerMetrics() {
+        Gauge.builder("search.login-index.entries", logins, Map::size).register(meterRegistry);
+        Gauge.builder("search.login-index.bytes", bytes, AtomicLong::get).baseUnit("bytes").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        catchUp();
+        ready = enabled;
+        if (ready) {
+            log.info("Loaded {} logins into the prefix index ({} KB), took {} ms.",
+                    logins.size(), bytes.get() / 1024, (System.nanoTime() - startedAt) / 1_000_000);
+        }
+    }
+
+    @Scheduled(fixedRateString = "${search.login-index.refresh-rate:60000}")
+    public void refresh() {
+        if (ready) {
+            catchUp();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserRegistered(UserRegisteredEvent event) {
+        if (enabled) {
+            add(event.getLogin(), event.getId());
+        }
+    }
+
+    /**
+     * Ids of users whose login starts with {@code prefix}, or empty if the index cannot answer
+     * and the caller should query the database.
+     */
+    public Optional<List<Long>> idsWithPrefix(String prefix) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        List<Long> ids = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : logins.tailMap(prefix).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            if (ids.size() == maxMatches) {
+                return Optional.empty();
+            }
+            ids.add(entry.getValue());
+        }
+        return Optional.of(ids);
+    }
+
+    public int size() {
+        return logins.size();
+    }
+
+    public long sizeInBytes() {
+        return bytes.get();
+    }
+
+    void add(String login, Long id) {
+        if (logins.put(login, id) == null) {
+            if (bytes.addAndGet(ENTRY_OVERHEAD_BYTES + login.length()) > maxSize.toBytes()) {
+                disable();
+                return;
+            }
+        }
+        maxId.accumulateAndGet(id, Math::max);
+    }
+
+    private void catchUp() {
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            if (enabled) {
+                add(rs.getString("login"), rs.getLong("id"));
+            }
+        }, Math.max(0, maxId.get() - CATCH_UP_OVERLAP));
+    }
+
+    private void disable() {
+        enabled = false;
+        ready = false;
+        logins.clear();
+        bytes.set(0);
+        log.warn("Login prefix index exceeded its budget of {}, searches will use the database.", maxSize);
+    }
+}
@@ -0,0 +1,114 @@
+package dev.aziz.bankingservice.services;
+
+import dev.aziz.bankingservice.exceptions.AppException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs BCrypt on a small fixed pool so a burst of logins cannot occupy every request thread.
+ * When the pool and its queue are full, callers are turned away with 429 right away.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@Service
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${security.password.hashing.threads:0}")
+    private int threads;
+
+    @Value("${security.password.hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    protected void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "password-hashing");
+        Gauge.builder("password.hashing.queue.depth", executor, pool -> pool.getQueue().size()).register(meterRegistry);
+        log.info("Password hashing runs on {} threads with a queue of {}.", poolSize, queueCapacity);
+    }
+
+    @PreDestroy
+    protected void shutdown() {
+        executor.shutdown();
+    }
+
+    public String encode(CharSequence rawPassword) {
+        return submit("encode", () -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Hashes on the pool without waiting for the result. Throws the same 429 as {@link #encode} when the pool is full.
+     */
+    public CompletableFuture<String> encodeAsync(CharSequence rawPassword) {
+        Timer timer = meterRegistry.timer("password.hash", "operation", "encode");
+        try {
+            return CompletableFuture.supplyAsync(() -> timer.record(() -> passwordEncoder.encode(rawPassword)), executor);
+        } catch (RejectedExecutionException e) {
+            throw rejected();
+        }
+    }
+
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit("matches", () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Whether the hash was made with a lower cost than currently configured.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T submit(String operation, Callable<T> task) {
+        Timer timer = meterRegistry.timer("password.hash", "operation", operation);
+        Future<T> result;
+        try {
+            result = executor.submit(() -> timer.recordCallable(task));
+        } catch (RejectedExecutionException e) {
+            throw rejected();
+        }
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.cancel(true);
+            throw new AppException("Request was interrupted.", HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private AppException rejected() {
+        meterRegistry.counter("password.hash.rejected").increment();
+        return new AppException("Too many requests, please retry.", HttpStatus.TOO_MANY_REQUESTS);
+    }
+}
@@ -0,0 +1,70 @@
+package dev.aziz.bankingservice.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the loader and everyone
+ * arriving while it runs gets the same result or exception. Nothing is kept once the load ends.
+ * Contention is per key, on the map bin of that key only.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, call);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+        loads.increment();
+        try {
+            V value = loader.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /**
+     * Publishes how many loads ran and how many callers shared one instead of querying themselves.
+     */
+    public void bindTo(MeterRegistry meterRegistry, String name) {
+        FunctionCounter.builder("singleflight.loads", this, SingleFlight::loads).tag("name", name).register(meterRegistry);
+        FunctionCounter.builder("singleflight.coalesced", this, SingleFlight::coalesced).tag("name", name).register(meterRegistry);
+    }
+
+    public long loads() {
+        return loads.sum();
+    }
+
+    public long coalesced() {
+        return coalesced.sum();
+    }
+
+    private static <V> V await(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package dev.aziz.bankingservice.services;
+
+import dev.aziz.bankingservice.entities.RevokedToken;
+import dev.aziz.bankingservice.repositories.RevokedTokenRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory index of revoked token ids. Lookups are a single hash probe; ids are
+ * grouped into per-minute expiry buckets so expired ones can be dropped in bulk.
+ * The index is written through to {@code revoked_token} and reloaded on startup.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@Service
+public class TokenRevocationService {
+
+    private static final long BUCKET_SECONDS = 60;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<Long, Set<String>> buckets = new ConcurrentSkipListMap<>();
+    private volatile Instant lastSync = Instant.EPOCH;
+
+    @PostConstruct
+    public void load() {
+        Instant now = Instant.now();
+        revokedTokenRepository.findAllByExpiresAtAfter(now).forEach(this::index);
+        lastSync = now;
+        log.info("Loaded {} revoked tokens.", revoked.size());
+    }
+
+    public boolean isRevoked(String jti) {
+        return revoked.containsKey(jti);
+    }
+
+    public void revoke(String jti, Instant expiresAt) {
+        Instant now = Instant.now();
+        if (!expiresAt.isAfter(now)) {
+            return;
+        }
+        RevokedToken revokedToken = RevokedToken.builder().jti(jti).expiresAt(expiresAt).revokedAt(now).build();
+        revokedTokenRepository.save(revokedToken);
+        index(revokedToken);
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    @Scheduled(fixedRateString = "${security.revocation.sweep-rate:30000}")
+    public void sweep() {
+        Instant now = Instant.now();
+        ConcurrentNavigableMap<Long, Set<String>> expired = buckets.headMap(now.getEpochSecond() / BUCKET_SECONDS);
+        expired.values().forEach(jtis -> jtis.forEach(revoked::remove));
+        expired.clear();
+        revokedTokenRepository.deleteExpired(now);
+
+        // Pick up revocations made by other instances since the last sweep; the overlap covers clock skew.
+        revokedTokenRepository.findAllByRevokedAtAfterAndExpiresAtAfter(lastSync.minusSeconds(5), now).forEach(this::index);
+        lastSync = now;
+    }
+
+    private void index(RevokedToken revokedToken) {
+        revoked.put(revokedToken.getJti(), revokedToken.getExpiresAt());
+        buckets.computeIfAbsent(revokedToken.getExpiresAt().getEpochSecond() / BUCKET_SECONDS,
+                        bucket -> ConcurrentHashMap.newKeySet())
+                .add(revokedToken.getJti());
+    }
+}
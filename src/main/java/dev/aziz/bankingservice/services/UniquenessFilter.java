@@ -0,0 +1,92 @@
+package dev.aziz.bankingservice.services;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bloom filters over taken logins, email keys and phone keys. A negative answer lets registration
+ * skip the existence query; a positive one may be false and is confirmed against the database.
+ * Values written by other instances are not seen here, which is safe because the unique
+ * constraints still reject them on insert. Removed contacts stay in the filters until restart
+ * and only cost an extra query.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@Service
+public class UniquenessFilter {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${registration.bloom.expected-insertions:1000000}")
+    private int expectedInsertions;
+
+    @Value("${registration.bloom.fpp:0.01}")
+    private double fpp;
+
+    private volatile BloomFilter<CharSequence> logins;
+    private volatile BloomFilter<CharSequence> emails;
+    private volatile BloomFilter<Long> phones;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        BloomFilter<CharSequence> loadedLogins = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), expectedInsertions, fpp);
+        BloomFilter<CharSequence> loadedEmails = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), expectedInsertions, fpp);
+        BloomFilter<Long> loadedPhones = BloomFilter.create(Funnels.longFunnel(), expectedInsertions, fpp);
+        jdbcTemplate.query("SELECT login FROM app_user", rs -> {
+            loadedLogins.put(rs.getString(1));
+        });
+        jdbcTemplate.query("SELECT name_key FROM email", rs -> {
+            loadedEmails.put(rs.getString(1));
+        });
+        jdbcTemplate.query("SELECT number_key FROM phone_number", rs -> {
+            loadedPhones.put(rs.getLong(1));
+        });
+        logins = loadedLogins;
+        emails = loadedEmails;
+        phones = loadedPhones;
+        log.info("Loaded uniqueness filters for about {} logins, {} emails and {} phone numbers.",
+                loadedLogins.approximateElementCount(), loadedEmails.approximateElementCount(), loadedPhones.approximateElementCount());
+    }
+
+    // Until the filters are loaded every value might be taken. A missing value or key is left to the
+    // database check and entity validation, which reject it with a message.
+
+    public boolean mightContainLogin(String login) {
+        return logins == null || login == null || logins.mightContain(login);
+    }
+
+    public boolean mightContainEmail(String emailKey) {
+        return emails == null || emailKey == null || emails.mightContain(emailKey);
+    }
+
+    public boolean mightContainPhone(Long phoneKey) {
+        return phones == null || phoneKey == null || phones.mightContain(phoneKey);
+    }
+
+    public void putLogin(String login) {
+        if (logins != null && login != null) {
+            logins.put(login);
+        }
+    }
+
+    public void putEmail(String emailKey) {
+        if (emails != null && emailKey != null) {
+            emails.put(emailKey);
+        }
+    }
+
+    public void putPhone(Long phoneKey) {
+        if (phones != null && phoneKey != null) {
+            phones.put(phoneKey);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package dev.aziz.bankingservice.services;
+
+import dev.aziz.bankingservice.exceptions.AppException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position for {@code GET /users?after=}: the sort field and direction it was
+ * issued for, plus the sort key and id of the last row returned.
+ */
+@Getter
+@RequiredArgsConstructor
+public class UserCursor {
+
+    private final String sortField;
+    private final Sort.Direction direction;
+    private final Long id;
+    private final String value;
+
+    public String encode() {
+        String raw = sortField + ":" + direction + ":" + id + ":" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static UserCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 4);
+            return new UserCursor(parts[0], Sort.Direction.fromString(parts[1]), Long.valueOf(parts[2]), parts[3]);
+        } catch (RuntimeException e) {
+            throw new AppException("Invalid cursor", HttpStatus.BAD_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package dev.aziz.bankingservice.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.aziz.bankingservice.dtos.UserSummaryDto;
+import dev.aziz.bankingservice.dtos.UserVersion;
+import dev.aziz.bankingservice.entities.User;
+import dev.aziz.bankingservice.exceptions.AppException;
+import dev.aziz.bankingservice.mappers.UserMapper;
+import dev.aziz.bankingservice.repositories.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Conditional GET for single users. The ETag is the user's version plus the interest-accrued
+ * balance, so it changes with every write and every accrual period but can be computed from a
+ * narrow projection. Recently rendered responses are kept serialized, keyed by user id.
+ */
+@RequiredArgsConstructor
+@Service
+public class UserResponseCache {
+
+    private final UserRepository userRepository;
+    private final UserMapper userMapper;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final EntityManager entityManager;
+
+    @Value("${user-response-cache.max-size:1000}")
+    private long maxSize;
+
+    @Value("${user-response-cache.ttl:30s}")
+    private Duration ttl;
+
+    private final SingleFlight<Long, UserResponse> renders = new SingleFlight<>();
+    private Cache<Long, UserResponse> responses;
+
+    @PostConstruct
+    protected void init() {
+        responses = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "user-responses");
+        renders.bindTo(meterRegistry, "user-by-id");
+    }
+
+    public String currentEtag(Long id) {
+        UserVersion version = userRepository.findVersionById(id)
+                .orElseThrow(() -> new AppException("User not found", HttpStatus.NOT_FOUND));
+        long periods = InterestCalculator.elapsedPeriods(version.getLastAccruedAt(), Instant.now());
+        return etag(id, version.getVersion(),
+                InterestCalculator.accruedBalance(version.getAccount(), version.getInitialDeposit(), periods));
+    }
+
+    public UserResponse get(Long id, String etag) {
+        UserResponse cached = responses.getIfPresent(id);
+        if (cached != null && cached.getEtag().equals(etag)) {
+            return cached;
+        }
+        // Concurrent misses for one user share a single load and serialization.
+        return renders.load(id, () -> render(id, etag));
+    }
+
+    private UserResponse render(Long id, String etag) {
+        User user = load(id);
+        UserSummaryDto userSummaryDto = userMapper.userToUserSummaryDto(user);
+        String renderedEtag = etag(id, user.getVersion(), userSummaryDto.getAccount());
+        if (!renderedEtag.equals(etag)) {
+            // The projection read the database, the entity may come from the second-level cache. A load that raced
+            // a JDBC balance write can put the old row back after the commit evicted it, so read the row again.
+            entityManager.detach(user);
+            entityManager.getEntityManagerFactory().getCache().evict(User.class, id);
+            user = load(id);
+            userSummaryDto = userMapper.userToUserSummaryDto(user);
+            renderedEtag = etag(id, user.getVersion(), userSummaryDto.getAccount());
+        }
+        try {
+            UserResponse response = new UserResponse(renderedEtag, objectMapper.writeValueAsBytes(userSummaryDto));
+            responses.put(id, response);
+            return response;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize user " + id, e);
+        }
+    }
+
+    private User load(Long id) {
+        return userRepository.findById(id)
+                .orElseThrow(() -> new AppException("User not found", HttpStatus.NOT_FOUND));
+    }
+
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String etag(Long id, Long version, BigDecimal balance) {
+        return "\"" + id + "-" + version + "-" + (balance == null ? "0" : balance.toPlainString()) + "\"";
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class UserResponse {
+
+        private final String etag;
+        private final byte[] body;
+    }
+}
@@ -3,31 +3,57 @@ package dev.aziz.bankingservice.services;
 import dev.aziz.bankingservice.dtos.CredentialsDto;
 import dev.aziz.bankingservice.dtos.SignUpDto;
 import dev.aziz.bankingservice.dtos.UserDto;
+import dev.aziz.bankingservice.dtos.UserScrollDto;
 import dev.aziz.bankingservice.dtos.UserSummaryDto;
 import dev.aziz.bankingservice.entities.Email;
+import dev.aziz.bankingservice.entities.LedgerEntry;
+import dev.aziz.bankingservice.entities.LedgerEntryType;
 import dev.aziz.bankingservice.entities.PhoneNumber;
 import dev.aziz.bankingservice.entities.User;
+import dev.aziz.bankingservice.events.UserChangedEvent;
+import dev.aziz.bankingservice.events.UserRegisteredEvent;
 import dev.aziz.bankingservice.exceptions.AppException;
 import dev.aziz.bankingservice.mappers.UserMapper;
 import dev.aziz.bankingservice.repositories.EmailRepository;
 import dev.aziz.bankingservice.repositories.PhoneNumberRepository;
 import dev.aziz.bankingservice.repositories.UserRepository;
+import dev.aziz.bankingservice.repositories.UserSpecifications;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
-import org.springframework.scheduling.annotation.Scheduled;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.nio.CharBuffer;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @RequiredArgsConstructor
 @Slf4j
@@ -38,7 +64,25 @@ public class UserService {
     private final PhoneNumberRepository phoneNumberRepository;
     private final EmailRepository emailRepository;
     private final UserMapper userMapper;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final LedgerService ledgerService;
+    private final IdempotencyService idempotencyService;
+    private final LoginPrefixIndex loginPrefixIndex;
+    private final UniquenessFilter uniquenessFilter;
+
+    private static final String NOT_ENOUGH_MONEY = "You do not have enough money.";
+
+    private static final Map<String, Function<String, Comparable<?>>> KEYSET_SORT_FIELDS = Map.of(
+            "id", Long::valueOf,
+            "login", value -> value,
+            "birthDate", LocalDate::parse
+    );
+
+    @Value("${transfer.max-attempts:3}")
+    private int transferMaxAttempts;
 
     public UserDto findByLogin(String login) {
         User user = userRepository.findByLogin(login)
@@ -51,41 +95,87 @@ public class UserService {
         User user = userRepository.findByLogin(credentialsDto.getLogin())
                 .orElseThrow(() -> new AppException("Unknown user", HttpStatus.NOT_FOUND));
 
-        if (passwordEncoder.matches(CharBuffer.wrap(credentialsDto.getPassword()), user.getPassword())) {
+        if (passwordHashingService.matches(CharBuffer.wrap(credentialsDto.getPassword()), user.getPassword())) {
+            if (passwordHashingService.needsRehash(user.getPassword())) {
+                rehashPassword(user, credentialsDto.getPassword().clone());
+            }
             return userMapper.toUserDto(user);
         }
 
         throw new AppException("Invalid password", HttpStatus.BAD_REQUEST);
     }
 
-    @Transactional
+    // Best effort and off the request thread: the password is already verified, so a busy pool must not fail the login.
+    private void rehashPassword(User user, char[] password) {
+        try {
+            passwordHashingService.encodeAsync(CharBuffer.wrap(password))
+                    .thenAccept(hash -> {
+                        userRepository.updatePassword(user.getId(), hash);
+                        log.info("Password of user {} has been rehashed with the configured cost.", user.getLogin());
+                    })
+                    .exceptionally(e -> {
+                        log.warn("Rehashing the password of user {} failed.", user.getLogin(), e);
+                        return null;
+                    });
+        } catch (AppException e) {
+            log.warn("Skipped rehashing the password of user {}: {}", user.getLogin(), e.getMessage());
+        }
+    }
+
     public UserDto register(SignUpDto signUpDto) {
-        Optional<User> optionalUser = userRepository.findByLogin(signUpDto.getLogin());
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String login = signUpDto.getLogin();
+        String emailKey = Email.keyOf(signUpDto.getEmail());
+        Long phoneKey = PhoneNumber.keyOf(signUpDto.getPhoneNumber());
+        checkNotRegistered(login, emailKey, phoneKey, true);
+
+        // BCrypt is deliberately slow, so the password is hashed before a connection is taken.
+        String password = passwordHashingService.encode(CharBuffer.wrap(signUpDto.getPassword()));
+        UserDto userDto;
+        try {
+            userDto = transactionTemplate.execute(status -> insertUser(signUpDto, password));
+        } catch (DataIntegrityViolationException e) {
+            // The unique constraints are the source of truth; find out which one was hit.
+            checkNotRegistered(login, emailKey, phoneKey, false);
+            throw new AppException("Registration conflicted with another request, please retry.", HttpStatus.CONFLICT);
+        }
+        uniquenessFilter.putLogin(login);
+        uniquenessFilter.putEmail(emailKey);
+        uniquenessFilter.putPhone(phoneKey);
+        sample.stop(meterRegistry.timer("user.register"));
+        return userDto;
+    }
 
-        if (optionalUser.isPresent()) {
+    private void checkNotRegistered(String login, String emailKey, Long phoneKey, boolean useFilter) {
+        if ((!useFilter || uniquenessFilter.mightContainLogin(login)) && userRepository.existsByLogin(login)) {
             throw new AppException("Login already exists", HttpStatus.BAD_REQUEST);
         }
-        if (emailRepository.existsEmailByName(signUpDto.getEmail())) {
+        if ((!useFilter || uniquenessFilter.mightContainEmail(emailKey)) && emailRepository.existsEmailByNameKey(emailKey)) {
             throw new AppException("Email already exists", HttpStatus.BAD_REQUEST);
         }
-
-        if (phoneNumberRepository.existsPhoneNumberByNumber(signUpDto.getPhoneNumber())) {
+        if ((!useFilter || uniquenessFilter.mightContainPhone(phoneKey)) && phoneNumberRepository.existsPhoneNumberByNumberKey(phoneKey)) {
             throw new AppException("Phone number already exists", HttpStatus.BAD_REQUEST);
         }
+    }
 
+    private UserDto insertUser(SignUpDto signUpDto, String password) {
         User user = User.builder()
                 .firstName(signUpDto.getFirstName())
                 .lastName(signUpDto.getLastName())
                 .login(signUpDto.getLogin())
+                .password(password)
                 .account(signUpDto.getAccount())
                 .initialDeposit(signUpDto.getAccount())
                 .birthDate(signUpDto.getBirthDate())
+                .lastAccruedAt(Instant.now())
                 .build();
-        user.setPassword(passwordEncoder.encode(CharBuffer.wrap(signUpDto.getPassword())));
         User savedUser = userRepository.save(user);
+        ledgerService.record(List.of(
+                LedgerService.entry(savedUser, LedgerEntryType.DEPOSIT, savedUser.getAccount(), null, savedUser.getLastAccruedAt())));
 
         Email savedEmail = emailRepository.save(Email.builder().name(signUpDto.getEmail()).user(savedUser).build());
         PhoneNumber savedPhoneNumber = phoneNumberRepository.save(PhoneNumber.builder().number(signUpDto.getPhoneNumber()).user(savedUser).build());
+        eventPublisher.publishEvent(new UserRegisteredEvent(savedUser.getId(), savedUser.getLogin()));
         log.info("User by login {} has been registered.", savedUser.getLogin());
         UserDto userDto = userMapper.toUserDto(savedUser);
         userDto.setEmails(List.of(savedEmail));
@@ -93,14 +183,8 @@ public class UserService {
         return userDto;
     }
 
-    public UserSummaryDto getOneUserById(Long id) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new AppException("User not found", HttpStatus.NOT_FOUND));
-        return userMapper.userToUserSummaryDto(user);
-    }
-
 
-    @Transactional
+    @Transactional(readOnly = true)
     public List<UserSummaryDto> searchUsers(Integer birthDate, String phone,
                                             String name, String email,
                                             int page, int size,
@@ -109,178 +193,336 @@ public class UserService {
         Pageable pageable = PageRequest.of(page, size, sort);
 
         try {
-            if (name == null) {
-                Page<User> users1 = userRepository.searchUsersWithoutLogin(birthDate, phone, email, pageable);
-                List<UserSummaryDto> userSummaryDtos =
-                        userMapper.usersToUserSummaryDtos(users1.stream().toList());
-                for (UserSummaryDto userSummaryDto : userSummaryDtos) {
-                    List<Email> emailsByUserId = emailRepository.findEmailsByUserId(userSummaryDto.getId());
-                    userSummaryDto.setEmails(emailsByUserId);
-
-                    List<PhoneNumber> numbersByUserId = phoneNumberRepository.findPhoneNumbersByUserId(userSummaryDto.getId());
-                    userSummaryDto.setPhoneNumbers(numbersByUserId);
-                }
-                return userSummaryDtos;
-            }
-            Page<User> users2 = userRepository.searchUsers(birthDate, phone, name, email, pageable);
-            List<UserSummaryDto> userSummaryDtos =
-                    userMapper.usersToUserSummaryDtos(users2.stream().toList());
-            for (UserSummaryDto userSummaryDto : userSummaryDtos) {
-                List<Email> emailsByUserId = emailRepository.findEmailsByUserId(userSummaryDto.getId());
-                userSummaryDto.setEmails(emailsByUserId);
-
-                List<PhoneNumber> numbersByUserId = phoneNumberRepository.findPhoneNumbersByUserId(userSummaryDto.getId());
-                userSummaryDto.setPhoneNumbers(numbersByUserId);
-            }
-            return userSummaryDtos;
+            // Contacts of the whole page are batch-fetched with one IN query per collection.
+            Page<User> users = userRepository.findAll(searchSpecification(birthDate, phone, name, email), pageable);
+            return userMapper.usersToUserSummaryDtos(users.getContent());
         } catch (Exception e) {
             throw new AppException("Search failed", HttpStatus.BAD_REQUEST);
         }
     }
 
-    @Transactional
-    public UserSummaryDto addEmail(UserDto userDto, String email) {
-        User user = userRepository.findByLogin(userDto.getLogin())
-                .orElseThrow(() -> new AppException("User by " + userDto.getLogin() + "not found", HttpStatus.NOT_FOUND));
-        Optional<Email> addingEmail = emailRepository.findByName(email);
-        if (addingEmail.isPresent()) {
-            throw new AppException("This Email already exists", HttpStatus.BAD_REQUEST);
+    @Transactional(readOnly = true)
+    public UserScrollDto scrollUsers(Integer birthDate, String phone,
+                                     String name, String email,
+                                     String after, int size,
+                                     String sortField, String sortDirection) {
+        Function<String, Comparable<?>> keyParser = KEYSET_SORT_FIELDS.get(sortField);
+        if (keyParser == null) {
+            throw new AppException("Sorting by " + sortField + " is not supported with after, use one of "
+                    + KEYSET_SORT_FIELDS.keySet(), HttpStatus.BAD_REQUEST);
+        }
+        Sort.Direction direction;
+        Specification<User> specification;
+        try {
+            direction = Sort.Direction.fromString(sortDirection);
+            specification = searchSpecification(birthDate, phone, name, email);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new AppException("Search failed", HttpStatus.BAD_REQUEST);
+        }
+        if (!after.isEmpty()) {
+            UserCursor cursor = UserCursor.decode(after);
+            if (!cursor.getSortField().equals(sortField) || cursor.getDirection() != direction) {
+                throw new AppException("Cursor was issued for a different sort order", HttpStatus.BAD_REQUEST);
+            }
+            Comparable<?> key;
+            try {
+                key = keyParser.apply(cursor.getValue());
+            } catch (IllegalArgumentException | DateTimeException e) {
+                throw new AppException("Invalid cursor", HttpStatus.BAD_REQUEST);
+            }
+            specification = specification.and(UserSpecifications.after(sortField, direction, key, cursor.getId()));
+        }
+        Sort sort = "id".equals(sortField)
+                ? Sort.by(direction, "id")
+                : Sort.by(direction, sortField).and(Sort.by(direction, "id"));
+
+        // One extra row tells whether there is a next slice, so no count query is needed.
+        List<User> users = userRepository.findBy(specification, query -> query.sortBy(sort).limit(size + 1).all());
+        boolean hasNext = users.size() > size;
+        Slice<User> slice = new SliceImpl<>(hasNext ? users.subList(0, size) : users, PageRequest.of(0, size, sort), hasNext);
+
+        String next = null;
+        if (slice.hasNext()) {
+            User last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            BeanWrapper lastRow = new BeanWrapperImpl(last);
+            next = new UserCursor(sortField, direction, last.getId(), String.valueOf(lastRow.getPropertyValue(sortField))).encode();
         }
-        List<Email> emails = user.getEmails();
-        Email savedEmail = emailRepository.save(Email.builder().name(email).user(user).build());
-        log.info("User by login {} has been added new email {}.", user.getLogin(), savedEmail.getName());
-        emails.add(savedEmail);
-        user.setEmails(emails);
-        return userMapper.userToUserSummaryDto(user);
+        return UserScrollDto.builder()
+                .users(userMapper.usersToUserSummaryDtos(slice.getContent()))
+                .next(next)
+                .build();
     }
 
-    @Transactional
-    public UserSummaryDto editEmail(UserDto userDto, String oldEmail, String newEmail) {
-        User user = userRepository.findByLogin(userDto.getLogin())
-                .orElseThrow(() -> new AppException("User by " + userDto.getLogin() + "not found", HttpStatus.NOT_FOUND));
-        Email oldDbEmail = emailRepository.findByName(oldEmail)
-                .orElseThrow(() -> new AppException("Email not found", HttpStatus.NOT_FOUND));
-        Optional<Email> newOptionalEmail = emailRepository.findByName(newEmail);
-        if (newOptionalEmail.isPresent()) {
-            throw new AppException("This Email already exists", HttpStatus.BAD_REQUEST);
+    private Specification<User> searchSpecification(Integer birthDate, String phone, String name, String email) {
+        Optional<List<Long>> ids = name == null ? Optional.empty() : loginPrefixIndex.idsWithPrefix(name);
+        if (ids.isEmpty()) {
+            return UserSpecifications.search(birthDate, phone, name, email);
         }
-        user.getEmails().remove(oldDbEmail);
-        oldDbEmail.setName(newEmail);
-        Email savedNewEmail = emailRepository.save(oldDbEmail);
-        log.info("User by login {} has been updated email {}.", user.getLogin(), savedNewEmail.getName());
-        user.getEmails().add(savedNewEmail);
-        User savedUser = userRepository.save(user);
-        return userMapper.userToUserSummaryDto(savedUser);
+        return UserSpecifications.search(birthDate, phone, null, email).and(UserSpecifications.idIn(ids.get()));
+    }
+
+    public UserSummaryDto addEmail(UserDto userDto, String email) {
+        return changeContacts(userDto, () -> {
+            User user = userRepository.findByLoginForChange(userDto.getLogin())
+                    .orElseThrow(() -> new AppException("User by " + userDto.getLogin() + "not found", HttpStatus.NOT_FOUND));
+            Optional<Email> addingEmail = emailRepository.findByNameKey(Email.keyOf(email));
+            if (addingEmail.isPresent()) {
+                throw new AppException("This Email already exists", HttpStatus.BAD_REQUEST);
+            }
+            List<Email> emails = user.getEmails();
+            Email savedEmail = emailRepository.save(Email.builder().name(email).user(user).build());
+            uniquenessFilter.putEmail(savedEmail.getNameKey());
+            log.info("User by login {} has been added new email {}.", user.getLogin(), savedEmail.getName());
+            emails.add(savedEmail);
+            user.setEmails(emails);
+            eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.getLogin()));
+            return userMapper.userToUserSummaryDto(user);
+        });
+    }
+
+    public UserSummaryDto editEmail(UserDto userDto, String oldEmail, String newEmail) {
+        return changeContacts(userDto, () -> {
+            User user = userRepository.findByLoginForChange(userDto.getLogin())
+                    .orElseThrow(() -> new AppException("User by " + userDto.getLogin() + "not found", HttpStatus.NOT_FOUND));
+            Email oldDbEmail = emailRepository.findByNameKey(Email.keyOf(oldEmail))
+                    .orElseThrow(() -> new AppException("Email not found", HttpStatus.NOT_FOUND));
+            Optional<Email> newOptionalEmail = emailRepository.findByNameKey(Email.keyOf(newEmail));
+            if (newOptionalEmail.isPresent() && !newOptionalEmail.get().getId().equals(oldDbEmail.getId())) {
+                throw new AppException("This Email already exists", HttpStatus.BAD_REQUEST);
+            }
+            user.getEmails().remove(oldDbEmail);
+            oldDbEmail.setName(newEmail);
+            Email savedNewEmail = emailRepository.save(oldDbEmail);
+            uniquenessFilter.putEmail(Email.keyOf(newEmail));
+            log.info("User by login {} has been updated email {}.", user.getLogin(), savedNewEmail.getName());
+            user.getEmails().add(savedNewEmail);
+            User savedUser = userRepository.save(user);
+            eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.getLogin()));
+            return userMapper.userToUserSummaryDto(savedUser);
+        });
     }
 
-    @Transactional
     public String deleteEmail(UserDto userDto, String email) {
-        log.info("User {} deleted email {}.", userDto.getLogin(), email);
-        User user = userRepository.findByLogin(userDto.getLogin())
-                .orElseThrow(() -> new AppException("User by " + userDto.getLogin() + "not found", HttpStatus.NOT_FOUND));
-        if (user.getEmails().size() <= 1) {
-            throw new AppException("Users cannot delete all their emails", HttpStatus.BAD_REQUEST);
-        }
-        Email deletingEmail = emailRepository.findByName(email)
-                .orElseThrow(() -> new AppException("This Email does not exist", HttpStatus.NOT_FOUND));
-        user.getEmails().remove(deletingEmail);
-        userRepository.save(user);
-        emailRepository.delete(deletingEmail);
-        return "Email by name: " + email + " deleted successfully.";
+        return changeContacts(userDto, () -> {
+            log.info("User {} deleted email {}.", userDto.getLogin(), email);
+            User user = userRepository.findByLoginForChange(userDto.getLogin())
+                    .orElseThrow(() -> new AppException("User by " + userDto.getLogin() + "not found", HttpStatus.NOT_FOUND));
+            if (user.getEmails().size() <= 1) {
+                throw new AppException("Users cannot delete all their emails", HttpStatus.BAD_REQUEST);
+            }
+            Email deletingEmail = emailRepository.findByNameKey(Email.keyOf(email))
+                    .orElseThrow(() -> new AppException("This Email does not exist", HttpStatus.NOT_FOUND));
+            user.getEmails().remove(deletingEmail);
+            userRepository.save(user);
+            emailRepository.delete(deletingEmail);
+            eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.getLogin()));
+            return "Email by name: " + email + " deleted successfully.";
+        });
     }
 
-    @Transactional
     public UserSummaryDto addPhoneNumber(UserDto userDto, String phoneNumber) {
-        User user = userRepository.findByLogin(userDto.getLogin())
-                .orElseThrow(() -> new AppException("User by " + userDto.getLogin() + "not found", HttpStatus.NOT_FOUND));
-        Optional<PhoneNumber> addingPhoneNumber = phoneNumberRepository.findByNumber(phoneNumber);
-        if (addingPhoneNumber.isPresent()) {
-            throw new AppException("This phone number already exists", HttpStatus.BAD_REQUEST);
-        }
-        List<PhoneNumber> phoneNumbers = user.getPhoneNumbers();
-        PhoneNumber savedPhoneNumber = phoneNumberRepository.save(PhoneNumber.builder().number(phoneNumber).user(user).build());
-        log.info("User by login {} has been added new phone number {}.", user.getLogin(), savedPhoneNumber.getNumber());
-        phoneNumbers.add(savedPhoneNumber);
-        user.setPhoneNumbers(phoneNumbers);
-        return userMapper.userToUserSummaryDto(user);
+        return changeContacts(userDto, () -> {
+            User user = userRepository.findByLoginForChange(userDto.getLogin())
+                    .orElseThrow(() -> new AppException("User by " + userDto.getLogin() + "not found", HttpStatus.NOT_FOUND));
+            Optional<PhoneNumber> addingPhoneNumber = phoneNumberRepository.findByNumberKey(PhoneNumber.keyOf(phoneNumber));
+            if (addingPhoneNumber.isPresent()) {
+                throw new AppException("This phone number already exists", HttpStatus.BAD_REQUEST);
+            }
+            List<PhoneNumber> phoneNumbers = user.getPhoneNumbers();
+            PhoneNumber savedPhoneNumber = phoneNumberRepository.save(PhoneNumber.builder().number(phoneNumber).user(user).build());
+            uniquenessFilter.putPhone(savedPhoneNumber.getNumberKey());
+            log.info("User by login {} has been added new phone number {}.", user.getLogin(), savedPhoneNumber.getNumber());
+            phoneNumbers.add(savedPhoneNumber);
+            user.setPhoneNumbers(phoneNumbers);
+            eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.getLogin()));
+            return userMapper.userToUserSummaryDto(user);
+        });
     }
 
-    @Transactional
     public String deletePhoneNumber(UserDto userDto, String phoneNumber) {
-        log.info("User {} deleted phone number {}.", userDto.getLogin(), phoneNumber);
-        User user = userRepository.findByLogin(userDto.getLogin())
-                .orElseThrow(() -> new AppException("User by " + userDto.getLogin() + "not found", HttpStatus.NOT_FOUND));
-        if (user.getPhoneNumbers().size() <= 1) {
-            throw new AppException("Users cannot delete all their phone numbers", HttpStatus.BAD_REQUEST);
-        }
-        PhoneNumber deletingPhoneNumber = phoneNumberRepository.findByNumber(phoneNumber)
-                .orElseThrow(() -> new AppException("This phone number does not exist", HttpStatus.NOT_FOUND));
-        user.getPhoneNumbers().remove(deletingPhoneNumber);
-        userRepository.save(user);
-        phoneNumberRepository.delete(deletingPhoneNumber);
-        return "Phone number: " + phoneNumber + " deleted successfully.";
+        return changeContacts(userDto, () -> {
+            log.info("User {} deleted phone number {}.", userDto.getLogin(), phoneNumber);
+            User user = userRepository.findByLoginForChange(userDto.getLogin())
+                    .orElseThrow(() -> new AppException("User by " + userDto.getLogin() + "not found", HttpStatus.NOT_FOUND));
+            if (user.getPhoneNumbers().size() <= 1) {
+                throw new AppException("Users cannot delete all their phone numbers", HttpStatus.BAD_REQUEST);
+            }
+            PhoneNumber deletingPhoneNumber = phoneNumberRepository.findByNumberKey(PhoneNumber.keyOf(phoneNumber))
+                    .orElseThrow(() -> new AppException("This phone number does not exist", HttpStatus.NOT_FOUND));
+            user.getPhoneNumbers().remove(deletingPhoneNumber);
+            userRepository.save(user);
+            phoneNumberRepository.delete(deletingPhoneNumber);
+            eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.getLogin()));
+            return "Phone number: " + phoneNumber + " deleted successfully.";
+        });
     }
 
-    @Transactional
     public UserSummaryDto editPhoneNumber(UserDto userDto, String oldPhoneNumber, String newPhoneNumber) {
-        User user = userRepository.findByLogin(userDto.getLogin())
-                .orElseThrow(() -> new AppException("User by " + userDto.getLogin() + "not found", HttpStatus.NOT_FOUND));
-        PhoneNumber oldDbPhoneNumber = phoneNumberRepository.findByNumber(oldPhoneNumber)
-                .orElseThrow(() -> new AppException("Phone number not found", HttpStatus.NOT_FOUND));
-        Optional<PhoneNumber> newOptionalPhoneNumber = phoneNumberRepository.findByNumber(oldPhoneNumber);
-        if (newOptionalPhoneNumber.isPresent()) {
-            throw new AppException("This phone number already exists", HttpStatus.BAD_REQUEST);
-        }
-        user.getPhoneNumbers().remove(oldDbPhoneNumber);
-        oldDbPhoneNumber.setNumber(newPhoneNumber);
-        PhoneNumber savedNewPhoneNumber = phoneNumberRepository.save(oldDbPhoneNumber);
-        log.info("User by login {} has been updated phone number {}.", user.getLogin(), savedNewPhoneNumber.getNumber());
-        user.getPhoneNumbers().add(savedNewPhoneNumber);
-        User savedUser = userRepository.save(user);
-        return userMapper.userToUserSummaryDto(savedUser);
+        return changeContacts(userDto, () -> {
+            User user = userRepository.findByLoginForChange(userDto.getLogin())
+                    .orElseThrow(() -> new AppException("User by " + userDto.getLogin() + "not found", HttpStatus.NOT_FOUND));
+            PhoneNumber oldDbPhoneNumber = phoneNumberRepository.findByNumberKey(PhoneNumber.keyOf(oldPhoneNumber))
+                    .orElseThrow(() -> new AppException("Phone number not found", HttpStatus.NOT_FOUND));
+            Optional<PhoneNumber> newOptionalPhoneNumber = phoneNumberRepository.findByNumberKey(PhoneNumber.keyOf(newPhoneNumber));
+            if (newOptionalPhoneNumber.isPresent() && !newOptionalPhoneNumber.get().getId().equals(oldDbPhoneNumber.getId())) {
+                throw new AppException("This phone number already exists", HttpStatus.BAD_REQUEST);
+            }
+            user.getPhoneNumbers().remove(oldDbPhoneNumber);
+            oldDbPhoneNumber.setNumber(newPhoneNumber);
+            PhoneNumber savedNewPhoneNumber = phoneNumberRepository.save(oldDbPhoneNumber);
+            uniquenessFilter.putPhone(PhoneNumber.keyOf(newPhoneNumber));
+            log.info("User by login {} has been updated phone number {}.", user.getLogin(), savedNewPhoneNumber.getNumber());
+            user.getPhoneNumbers().add(savedNewPhoneNumber);
+            User savedUser = userRepository.save(user);
+            eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.getLogin()));
+            return userMapper.userToUserSummaryDto(savedUser);
+        });
+    }
 
+    /**
+     * Runs a contact change in its own transaction. Transfers, batches and accrual bump the user's version too,
+     * so a change that loses the optimistic check on commit is retried from a fresh read.
+     */
+    private <T> T changeContacts(UserDto userDto, Supplier<T> change) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> change.get());
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= transferMaxAttempts) {
+                    log.warn("Contact change of {} failed after {} attempts.", userDto.getLogin(), attempt);
+                    throw new AppException("User was changed concurrently, please retry.", HttpStatus.CONFLICT);
+                }
+                meterRegistry.counter("contact.retries").increment();
+            }
+        }
     }
 
-    @Transactional
     public UserSummaryDto sendMoney(UserDto userDto, BigDecimal money, Long receiverId) {
-        User sender = userRepository.findByLogin(userDto.getLogin())
+        return sendMoney(userDto, money, receiverId, null);
+    }
+
+    public UserSummaryDto sendMoney(UserDto userDto, BigDecimal money, Long receiverId, String idempotencyKey) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            UserSummaryDto summary = sendMoneyWithRetries(userDto, money, receiverId, idempotencyKey);
+            outcome = "success";
+            return summary;
+        } catch (AppException e) {
+            outcome = transferOutcome(e);
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer("transfer", "outcome", outcome));
+        }
+    }
+
+    private static String transferOutcome(AppException e) {
+        if (e.getStatus() == HttpStatus.NOT_FOUND) {
+            return "not_found";
+        }
+        if (e.getStatus() == HttpStatus.CONFLICT) {
+            return "conflict";
+        }
+        return NOT_ENOUGH_MONEY.equals(e.getMessage()) ? "insufficient_funds" : "rejected";
+    }
+
+    private UserSummaryDto sendMoneyWithRetries(UserDto userDto, BigDecimal money, Long receiverId, String idempotencyKey) {
+        if (money.signum() <= 0) {
+            throw new AppException("Amount should be positive.", HttpStatus.BAD_REQUEST);
+        }
+        if (userDto.getId().equals(receiverId)) {
+            throw new AppException("You cannot send money to yourself.", HttpStatus.BAD_REQUEST);
+        }
+        String requestHash = IdempotencyService.requestHash(money, receiverId);
+        if (idempotencyKey != null) {
+            Optional<UserSummaryDto> replay = idempotencyService.findCached(userDto.getId(), idempotencyKey, requestHash);
+            if (replay.isPresent()) {
+                return replay.get();
+            }
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                UserSummaryDto result = transactionTemplate.execute(status -> {
+                    if (idempotencyKey != null) {
+                        Optional<UserSummaryDto> stored = idempotencyService.claim(userDto.getId(), idempotencyKey, requestHash);
+                        if (stored.isPresent()) {
+                            return stored.get();
+                        }
+                    }
+                    UserSummaryDto summary = transfer(userDto, money, receiverId);
+                    if (idempotencyKey != null) {
+                        idempotencyService.complete(userDto.getId(), idempotencyKey, summary);
+                    }
+                    return summary;
+                });
+                if (idempotencyKey != null) {
+                    idempotencyService.cache(userDto.getId(), idempotencyKey, requestHash, result);
+                }
+                return result;
+            } catch (DataIntegrityViolationException e) {
+                // Lost the race on the idempotency key: the winner has committed by now, so replay its response.
+                if (idempotencyKey == null) {
+                    throw e;
+                }
+                return idempotencyService.find(userDto.getId(), idempotencyKey, requestHash)
+                        .orElseThrow(() -> new AppException("A request with this Idempotency-Key is in progress.", HttpStatus.CONFLICT));
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= transferMaxAttempts) {
+                    log.warn("Transfer from {} to {} failed after {} attempts.", userDto.getLogin(), receiverId, attempt);
+                    throw new AppException("Transfer could not be completed, please retry.", HttpStatus.CONFLICT);
+                }
+                meterRegistry.counter("transfer.retries").increment();
+            }
+        }
+    }
+
+    private UserSummaryDto transfer(UserDto userDto, BigDecimal money, Long receiverId) {
+        // Both rows are locked in ascending id order, so opposite transfers between two users cannot deadlock.
+        long lockStartedAt = System.nanoTime();
+        List<User> locked = userRepository.findAllByIdInForUpdate(List.of(userDto.getId(), receiverId));
+        meterRegistry.timer("transfer.lock.wait").record(System.nanoTime() - lockStartedAt, TimeUnit.NANOSECONDS);
+
+        User sender = findLocked(locked, userDto.getId())
                 .orElseThrow(() -> new AppException("User by " + userDto.getLogin() + " not found", HttpStatus.NOT_FOUND));
-        User receiver = userRepository.findById(receiverId)
+        User receiver = findLocked(locked, receiverId)
                 .orElseThrow(() -> new AppException("User by id " + receiverId + " not found", HttpStatus.NOT_FOUND));
+        Instant now = Instant.now();
+        List<LedgerEntry> entries = new ArrayList<>();
+        accrue(sender, now, entries);
+        accrue(receiver, now, entries);
         if (sender.getAccount().subtract(money).compareTo(BigDecimal.ZERO) < 0) {
-            throw new AppException("You do not have enough money.", HttpStatus.BAD_REQUEST);
+            throw new AppException(NOT_ENOUGH_MONEY, HttpStatus.BAD_REQUEST);
         }
         BigDecimal subtracted = sender.getAccount().subtract(money);
         BigDecimal added = receiver.getAccount().add(money);
         sender.setAccount(subtracted);
+        entries.add(LedgerService.entry(sender, LedgerEntryType.TRANSFER_DEBIT, money.negate(), receiver.getId(), now));
         receiver.setAccount(added);
-        User savedSender = userRepository.save(sender);
-        userRepository.save(receiver);
-        return userMapper.userToUserSummaryDto(savedSender);
+        entries.add(LedgerService.entry(receiver, LedgerEntryType.TRANSFER_CREDIT, money, sender.getId(), now));
+        ledgerService.record(entries);
+        eventPublisher.publishEvent(new UserChangedEvent(sender.getId(), sender.getLogin()));
+        eventPublisher.publishEvent(new UserChangedEvent(receiver.getId(), receiver.getLogin()));
+        return userMapper.userToUserSummaryDto(sender);
     }
 
-    @Transactional
-    @Scheduled(fixedRate = 60000)
-    public void incrementUserAccount() {
-        List<User> users = userRepository.findAll();
-        if (users.isEmpty()) {
-            log.info("No users found. Skipping increment operation.");
-            return;
+    private void accrue(User user, Instant now, List<LedgerEntry> entries) {
+        BigDecimal before = user.getAccount();
+        InterestCalculator.accrue(user, now);
+        if (before != null && before.compareTo(user.getAccount()) != 0) {
+            entries.add(LedgerService.entry(user, LedgerEntryType.ACCRUAL, user.getAccount().subtract(before), null, now));
         }
-        for (User user : users) {
-            BigDecimal currentBalance = user.getAccount();
-            BigDecimal initialDeposit = user.getInitialDeposit();
-            BigDecimal maxBalance = initialDeposit.multiply(BigDecimal.valueOf(2.07));
-
-            if (currentBalance.compareTo(maxBalance) < 0) {
-                BigDecimal increment = currentBalance.multiply(BigDecimal.valueOf(0.05));
-                BigDecimal newBalance = currentBalance.add(increment);
-                if (newBalance.compareTo(maxBalance) > 0) {
-                    newBalance = maxBalance;
-                }
-                user.setAccount(newBalance);
-                userRepository.save(user);
-            }
+    }
+
+    private Optional<User> findLocked(List<User> locked, Long id) {
+        return locked.stream().filter(user -> user.getId().equals(id)).findFirst();
+    }
+
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void initLastAccruedAt() {
+        int initialized = userRepository.initLastAccruedAt(Instant.now());
+        if (initialized > 0) {
+            log.info("Started lazy interest accrual for {} existing users.", initialized);
         }
     }
 
@@ -0,0 +1,64 @@
+-- Accrual, ledger, token revocation and idempotency state.
+-- IF NOT EXISTS: databases that ran with ddl-auto after these entities appeared already have some of it.
+-- Existing users get their ledger_seq and last_accrued_at backfilled on startup.
+ALTER TABLE app_user ADD COLUMN IF NOT EXISTS last_accrued_at TIMESTAMP(6) WITH TIME ZONE;
+ALTER TABLE app_user ADD COLUMN IF NOT EXISTS ledger_seq BIGINT;
+
+CREATE TABLE IF NOT EXISTS revoked_token
+(
+    jti        VARCHAR(255)                NOT NULL PRIMARY KEY,
+    expires_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    revoked_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS job_lease
+(
+    name         VARCHAR(255)                NOT NULL PRIMARY KEY,
+    owner        VARCHAR(255),
+    leased_until TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS accrual_checkpoint
+(
+    id           BIGSERIAL PRIMARY KEY,
+    run_id       BIGINT NOT NULL,
+    range_start  BIGINT NOT NULL,
+    range_end    BIGINT NOT NULL,
+    completed_at TIMESTAMP(6) WITH TIME ZONE,
+    UNIQUE (run_id, range_start)
+);
+
+CREATE TABLE IF NOT EXISTS ledger_entry
+(
+    id              BIGSERIAL PRIMARY KEY,
+    user_id         BIGINT                      NOT NULL,
+    seq             BIGINT                      NOT NULL,
+    type            VARCHAR(255)                NOT NULL
+        CHECK (type IN ('DEPOSIT', 'TRANSFER_DEBIT', 'TRANSFER_CREDIT', 'ACCRUAL')),
+    amount          NUMERIC(15, 3)              NOT NULL,
+    balance_after   NUMERIC(15, 3)              NOT NULL,
+    counterparty_id BIGINT,
+    created_at      TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    UNIQUE (user_id, seq)
+);
+
+CREATE TABLE IF NOT EXISTS balance_snapshot
+(
+    id         BIGSERIAL PRIMARY KEY,
+    user_id    BIGINT                      NOT NULL,
+    seq        BIGINT                      NOT NULL,
+    balance    NUMERIC(15, 3)              NOT NULL,
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    UNIQUE (user_id, seq)
+);
+
+CREATE TABLE IF NOT EXISTS idempotency_key
+(
+    id              BIGSERIAL PRIMARY KEY,
+    user_id         BIGINT                      NOT NULL,
+    idempotency_key VARCHAR(255)                NOT NULL,
+    request_hash    VARCHAR(255)                NOT NULL,
+    response        TEXT,
+    expires_at      TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    UNIQUE (user_id, idempotency_key)
+);
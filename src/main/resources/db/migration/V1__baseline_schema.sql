@@ -0,0 +1,27 @@
+-- Schema as previously created by ddl-auto: update. Existing databases are baselined at this version.
+
+CREATE TABLE app_user
+(
+    id              BIGSERIAL PRIMARY KEY,
+    first_name      VARCHAR(255)   NOT NULL,
+    last_name       VARCHAR(255)   NOT NULL,
+    birth_date      DATE           NOT NULL,
+    login           VARCHAR(255)   NOT NULL UNIQUE,
+    password        VARCHAR(255)   NOT NULL,
+    account         NUMERIC(15, 3),
+    initial_deposit NUMERIC(15, 3)
+);
+
+CREATE TABLE email
+(
+    id      BIGSERIAL PRIMARY KEY,
+    name    VARCHAR(255) NOT NULL UNIQUE,
+    user_id BIGINT REFERENCES app_user (id)
+);
+
+CREATE TABLE phone_number
+(
+    id      BIGSERIAL PRIMARY KEY,
+    number  VARCHAR(255) NOT NULL UNIQUE,
+    user_id BIGINT REFERENCES app_user (id)
+);
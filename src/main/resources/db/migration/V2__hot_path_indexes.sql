@@ -0,0 +1,13 @@
+-- Contact collections are loaded and edited by owner.
+CREATE INDEX idx_email_user_id ON email (user_id);
+CREATE INDEX idx_phone_number_user_id ON phone_number (user_id);
+
+-- LIKE 'prefix%' on login; the unique index uses the database collation and cannot serve it.
+CREATE INDEX idx_app_user_login_pattern ON app_user (login text_pattern_ops);
+
+-- Created by ddl-auto on databases that ran before migrations were introduced.
+CREATE INDEX IF NOT EXISTS idx_app_user_birth_date ON app_user (birth_date);
+
+-- Sweeps delete by expiry.
+CREATE INDEX idx_revoked_token_expires_at ON revoked_token (expires_at);
+CREATE INDEX idx_idempotency_key_expires_at ON idempotency_key (expires_at);
@@ -0,0 +1,11 @@
+-- Canonical contact keys: lowercased emails and digits-only phone numbers.
+-- Existing near-duplicates have to be merged by hand before this migration can apply.
+ALTER TABLE email ADD COLUMN name_key VARCHAR(255);
+UPDATE email SET name_key = LOWER(TRIM(name));
+ALTER TABLE email ALTER COLUMN name_key SET NOT NULL;
+ALTER TABLE email ADD CONSTRAINT uk_email_name_key UNIQUE (name_key);
+
+ALTER TABLE phone_number ADD COLUMN number_key BIGINT;
+UPDATE phone_number SET number_key = CAST(REGEXP_REPLACE(number, '\D', '', 'g') AS BIGINT);
+ALTER TABLE phone_number ALTER COLUMN number_key SET NOT NULL;
+ALTER TABLE phone_number ADD CONSTRAINT uk_phone_number_number_key UNIQUE (number_key);
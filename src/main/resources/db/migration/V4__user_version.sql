@@ -0,0 +1,2 @@
+-- Bumped on every change to a user or its contacts; used as the ETag of GET /users/{id}.
+ALTER TABLE app_user ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -1,9 +1,12 @@
 package dev.aziz.bankingservice;
 
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
 @SpringBootTest
+@AutoConfigureEmbeddedDatabase(type = AutoConfigureEmbeddedDatabase.DatabaseType.POSTGRES,
+        provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
 class BankingServiceApplicationTests {
 
 	@Test
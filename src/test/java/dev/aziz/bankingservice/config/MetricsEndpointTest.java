@@ -0,0 +1,44 @@
+package dev.aziz.bankingservice.config;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@AutoConfigureObservability(tracing = false)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureEmbeddedDatabase(type = AutoConfigureEmbeddedDatabase.DatabaseType.POSTGRES,
+        provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+class MetricsEndpointTest {
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void prometheusScrapeExposesRequestAndHibernateMetricsTest() {
+        // given
+        restTemplate.getForEntity("/users/1", String.class);
+
+        // when
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                "http://localhost:" + managementPort + "/actuator/prometheus", String.class);
+
+        // then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        String body = response.getBody();
+        assertNotNull(body);
+        assertTrue(body.contains("http_server_requests_seconds_bucket{"), "request latency histogram");
+        assertTrue(body.contains("hibernate_statements_total"), "Hibernate statistics");
+        assertTrue(body.contains("hibernate_entities_loads_total"), "Hibernate entity loads");
+    }
+}
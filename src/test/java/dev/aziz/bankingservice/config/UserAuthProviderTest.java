@@ -0,0 +1,81 @@
+package dev.aziz.bankingservice.config;
+
+import dev.aziz.bankingservice.dtos.UserDto;
+import dev.aziz.bankingservice.events.UserChangedEvent;
+import dev.aziz.bankingservice.services.TokenRevocationService;
+import dev.aziz.bankingservice.services.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserAuthProviderTest {
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    private UserAuthProvider userAuthProvider;
+
+    @BeforeEach
+    void setUp() {
+        userAuthProvider = new UserAuthProvider(userService, tokenRevocationService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(userAuthProvider, "secretKey", "secret-value");
+        ReflectionTestUtils.setField(userAuthProvider, "principalCacheMaxSize", 100L);
+        ReflectionTestUtils.setField(userAuthProvider, "principalCacheTtl", Duration.ofMinutes(1));
+        userAuthProvider.init();
+    }
+
+    @Test
+    void validateTokenCachesPrincipalTest() {
+        // given
+        UserDto user = UserDto.builder().id(1L).login("azizdev").build();
+        String firstToken = userAuthProvider.createToken("azizdev");
+        String secondToken = userAuthProvider.createToken("azizdev");
+
+        // when
+        when(userService.findByLogin("azizdev")).thenReturn(user);
+
+        Authentication first = userAuthProvider.validateToken(firstToken);
+        Authentication second = userAuthProvider.validateToken(secondToken);
+
+        // then
+        assertSame(user, first.getPrincipal());
+        assertSame(user, second.getPrincipal());
+        verify(userService, times(1)).findByLogin("azizdev");
+    }
+
+    @Test
+    void userChangeReloadsPrincipalTest() {
+        // given
+        UserDto before = UserDto.builder().id(1L).login("azizdev").build();
+        UserDto after = UserDto.builder().id(1L).login("azizdev").build();
+        String token = userAuthProvider.createToken("azizdev");
+
+        // when
+        when(userService.findByLogin("azizdev")).thenReturn(before, after, after);
+
+        Authentication cached = userAuthProvider.validateToken(token);
+        userAuthProvider.onUserChanged(new UserChangedEvent(1L, "azizdev"));
+        Authentication reloaded = userAuthProvider.validateToken(token);
+        userAuthProvider.onUserChanged(UserChangedEvent.allUsers());
+        userAuthProvider.validateToken(token);
+
+        // then
+        assertSame(before, cached.getPrincipal());
+        assertSame(after, reloaded.getPrincipal());
+        verify(userService, times(3)).findByLogin("azizdev");
+    }
+}
@@ -0,0 +1,134 @@
+package dev.aziz.bankingservice.controllers;
+
+import dev.aziz.bankingservice.config.QueryBudget;
+import dev.aziz.bankingservice.config.QueryCountFilter;
+import dev.aziz.bankingservice.config.UserAuthProvider;
+import dev.aziz.bankingservice.entities.Email;
+import dev.aziz.bankingservice.entities.PhoneNumber;
+import dev.aziz.bankingservice.entities.User;
+import dev.aziz.bankingservice.repositories.UserRepository;
+import dev.aziz.bankingservice.services.PasswordHashingService;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+/**
+ * Each budgeted endpoint is called once to warm the principal and entity caches, then a second
+ * call must stay within the statements its {@link QueryBudget} declares.
+ */
+@SpringBootTest(properties = "query-count.response-headers=true")
+@AutoConfigureMockMvc
+@AutoConfigureEmbeddedDatabase(type = AutoConfigureEmbeddedDatabase.DatabaseType.POSTGRES,
+        provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+class QueryBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserAuthProvider userAuthProvider;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    private User sender;
+    private User receiver;
+    private String authorization;
+
+    @BeforeEach
+    void setUp() {
+        sender = userRepository.findByLogin("budget0").orElseGet(() -> save("budget0", "79770000000"));
+        receiver = userRepository.findByLogin("budget1").orElseGet(() -> save("budget1", "79770000001"));
+        authorization = "Bearer " + userAuthProvider.createToken(sender.getLogin());
+    }
+
+    @Test
+    void getUserByIdStaysWithinBudgetTest() throws Exception {
+        assertWithinBudget(get("/users/" + receiver.getId()).header(HttpHeaders.AUTHORIZATION, authorization));
+    }
+
+    @Test
+    void searchUsersStaysWithinBudgetTest() throws Exception {
+        assertWithinBudget(get("/users?name=budget&size=10").header(HttpHeaders.AUTHORIZATION, authorization));
+    }
+
+    @Test
+    void sendMoneyStaysWithinBudgetTest() throws Exception {
+        assertWithinBudget(patch("/users/account?money=1&receiverId=" + receiver.getId())
+                .header(HttpHeaders.AUTHORIZATION, authorization));
+    }
+
+    @Test
+    void loginStaysWithinBudgetTest() throws Exception {
+        assertWithinBudget(post("/login").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"login\":\"budget0\",\"password\":\"password\"}"));
+    }
+
+    @Test
+    void enforcedBudgetFailsRequestOverItTest() throws Exception {
+        // given
+        QueryCountFilter filter = new QueryCountFilter(false, true);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE,
+                new HandlerMethod(this, QueryBudgetTest.class.getDeclaredMethod("noStatementsAllowed")));
+
+        // when
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () ->
+                filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> userRepository.count()));
+
+        // then
+        assertTrue(exception.getMessage().contains("ran 1 statements, its budget is 0"), exception.getMessage());
+    }
+
+    @QueryBudget(statements = 0)
+    void noStatementsAllowed() {
+    }
+
+    private void assertWithinBudget(RequestBuilder request) throws Exception {
+        // given
+        mockMvc.perform(request);
+
+        // when
+        MvcResult result = mockMvc.perform(request).andReturn();
+
+        // then
+        assertEquals(200, result.getResponse().getStatus(), result.getResponse().getContentAsString());
+        QueryBudget budget = ((HandlerMethod) result.getHandler()).getMethodAnnotation(QueryBudget.class);
+        assertNotNull(budget);
+        int statements = Integer.parseInt(result.getResponse().getHeader(QueryCountFilter.STATEMENTS_HEADER));
+        assertTrue(statements <= budget.statements(), "ran " + statements + " statements, budget is " + budget.statements());
+    }
+
+    private User save(String login, String phoneNumber) {
+        User user = User.builder().login(login).firstName("First").lastName("Last")
+                .password(passwordHashingService.encode("password")).birthDate(LocalDate.of(1990, 1, 1))
+                .initialDeposit(BigDecimal.valueOf(1000)).account(BigDecimal.valueOf(1000))
+                .lastAccruedAt(Instant.now()).ledgerSeq(0L).build();
+        user.setEmails(List.of(Email.builder().name(login + "@mail.com").user(user).build()));
+        user.setPhoneNumbers(List.of(PhoneNumber.builder().number(phoneNumber).user(user).build()));
+        return userRepository.save(user);
+    }
+}
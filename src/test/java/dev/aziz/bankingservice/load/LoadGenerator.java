@@ -0,0 +1,189 @@
+package dev.aziz.bankingservice.load;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Sends a weighted mix of requests either closed-loop (a fixed number of workers, each sending
+ * its next request when the previous one returns) or open-loop (requests started at a fixed rate
+ * whether or not earlier ones have finished). Latencies are recorded per endpoint in microseconds.
+ * In open-loop mode they are measured from the intended start time, so time spent queued behind a
+ * slow server counts against it instead of being silently skipped.
+ */
+@Slf4j
+class LoadGenerator {
+
+    record Endpoint(String name, int weight, Supplier<HttpRequest> request) {
+    }
+
+    private final HttpClient httpClient;
+    private final List<Endpoint> endpoints;
+    private final int totalWeight;
+    private final Map<String, Histogram> latencies = new LinkedHashMap<>();
+    private final Map<String, LongAdder> errors = new LinkedHashMap<>();
+
+    LoadGenerator(HttpClient httpClient, List<Endpoint> endpoints) {
+        this.httpClient = httpClient;
+        this.endpoints = endpoints.stream().filter(endpoint -> endpoint.weight() > 0).toList();
+        this.totalWeight = this.endpoints.stream().mapToInt(Endpoint::weight).sum();
+        if (totalWeight == 0) {
+            throw new IllegalArgumentException("At least one endpoint needs a positive weight");
+        }
+        this.endpoints.forEach(endpoint -> {
+            latencies.put(endpoint.name(), new ConcurrentHistogram(3));
+            errors.put(endpoint.name(), new LongAdder());
+        });
+    }
+
+    Report runClosedLoop(int concurrency, Duration warmup, Duration duration) throws InterruptedException {
+        log.info("Warming up for {} with {} workers.", warmup, concurrency);
+        closedLoop(concurrency, warmup);
+        reset();
+        log.info("Measuring for {} with {} workers.", duration, concurrency);
+        long startedAt = System.nanoTime();
+        closedLoop(concurrency, duration);
+        return report(System.nanoTime() - startedAt);
+    }
+
+    Report runOpenLoop(double ratePerSecond, int maxInFlight, Duration warmup, Duration duration) throws InterruptedException {
+        log.info("Warming up for {} at {} requests/sec.", warmup, ratePerSecond);
+        openLoop(ratePerSecond, maxInFlight, warmup);
+        reset();
+        log.info("Measuring for {} at {} requests/sec.", duration, ratePerSecond);
+        long startedAt = System.nanoTime();
+        openLoop(ratePerSecond, maxInFlight, duration);
+        return report(System.nanoTime() - startedAt);
+    }
+
+    private void closedLoop(int concurrency, Duration duration) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            workers.execute(() -> {
+                while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                    send(pick(), System.nanoTime());
+                }
+            });
+        }
+        awaitCompletion(workers, duration);
+    }
+
+    private void openLoop(double ratePerSecond, int maxInFlight, Duration duration) throws InterruptedException {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + duration.toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(maxInFlight);
+        for (long intended = startedAt; intended < deadline; intended += interval) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            long scheduledAt = intended;
+            workers.execute(() -> send(pick(), scheduledAt));
+        }
+        awaitCompletion(workers, duration);
+    }
+
+    private void awaitCompletion(ExecutorService workers, Duration duration) throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+
+    private Endpoint pick() {
+        int ticket = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Endpoint endpoint : endpoints) {
+            ticket -= endpoint.weight();
+            if (ticket < 0) {
+                return endpoint;
+            }
+        }
+        throw new IllegalStateException("Weights changed while picking");
+    }
+
+    private void send(Endpoint endpoint, long startedAt) {
+        boolean failed;
+        try {
+            HttpResponse<Void> response = httpClient.send(endpoint.request().get(), HttpResponse.BodyHandlers.discarding());
+            failed = response.statusCode() >= 400;
+        } catch (IOException e) {
+            failed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        latencies.get(endpoint.name()).recordValue((System.nanoTime() - startedAt) / 1_000);
+        if (failed) {
+            errors.get(endpoint.name()).increment();
+        }
+    }
+
+    private void reset() {
+        latencies.values().forEach(Histogram::reset);
+        errors.values().forEach(LongAdder::reset);
+    }
+
+    private Report report(long elapsedNanos) {
+        Map<String, Histogram> histograms = new LinkedHashMap<>();
+        Map<String, Long> errorCounts = new LinkedHashMap<>();
+        latencies.forEach((name, histogram) -> histograms.put(name, histogram.copy()));
+        errors.forEach((name, count) -> errorCounts.put(name, count.sum()));
+        return new Report(Duration.ofNanos(elapsedNanos), histograms, errorCounts);
+    }
+
+    record Report(Duration elapsed, Map<String, Histogram> latencies, Map<String, Long> errors) {
+
+        double throughput(String endpoint) {
+            return latencies.get(endpoint).getTotalCount() * 1_000_000_000.0 / elapsed.toNanos();
+        }
+
+        double errorRate(String endpoint) {
+            long count = latencies.get(endpoint).getTotalCount();
+            return count == 0 ? 0 : (double) errors.get(endpoint) / count;
+        }
+
+        String summary() {
+            StringBuilder summary = new StringBuilder(String.format("%-10s %10s %8s %10s %10s %10s %10s %10s%n",
+                    "endpoint", "requests", "errors", "req/sec", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+            latencies.forEach((name, histogram) -> summary.append(String.format("%-10s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                    name, histogram.getTotalCount(), errors.get(name), throughput(name),
+                    histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0, histogram.getMaxValue() / 1000.0)));
+            return summary.toString();
+        }
+
+        /**
+         * One {@code <endpoint>.hgrm} percentile distribution per endpoint, in milliseconds; the
+         * files load directly into the HdrHistogram plotter.
+         */
+        void writeHistograms(Path directory) throws IOException {
+            Files.createDirectories(directory);
+            for (Map.Entry<String, Histogram> entry : latencies.entrySet()) {
+                try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(entry.getKey() + ".hgrm")))) {
+                    entry.getValue().outputPercentileDistribution(out, 1000.0);
+                }
+            }
+        }
+    }
+}
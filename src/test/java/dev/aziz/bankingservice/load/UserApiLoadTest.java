@@ -0,0 +1,178 @@
+package dev.aziz.bankingservice.load;
+
+import dev.aziz.bankingservice.config.UserAuthProvider;
+import dev.aziz.bankingservice.services.PasswordHashingService;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Load harness for the main endpoints, run with {@code mvn test -P load-test}. Every knob is a
+ * {@code load.*} system property: {@code users}, {@code concurrency} for closed-loop runs,
+ * {@code rate} (requests/sec) and {@code max-in-flight} for open-loop runs, {@code warmup},
+ * {@code duration}, {@code mix} and {@code max-error-rate}. Results are logged and written as
+ * HDR percentile distributions to {@code target/load}.
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureEmbeddedDatabase(type = AutoConfigureEmbeddedDatabase.DatabaseType.POSTGRES,
+        provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+@EnabledIfSystemProperty(named = "load.enabled", matches = "true")
+class UserApiLoadTest {
+
+    private static final String PASSWORD = "password";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private UserAuthProvider userAuthProvider;
+
+    @Value("${load.users:1000}")
+    private int users;
+
+    @Value("${load.concurrency:16}")
+    private int concurrency;
+
+    @Value("${load.rate:0}")
+    private double rate;
+
+    @Value("${load.max-in-flight:64}")
+    private int maxInFlight;
+
+    @Value("${load.warmup:10s}")
+    private Duration warmup;
+
+    @Value("${load.duration:60s}")
+    private Duration duration;
+
+    @Value("${load.mix:login=1,search=3,user=5,transfer=1}")
+    private String mix;
+
+    @Value("${load.max-error-rate:0.01}")
+    private double maxErrorRate;
+
+    private final List<Long> ids = new ArrayList<>();
+    private final List<String> tokens = new ArrayList<>();
+
+    @Test
+    void mixedWorkloadTest() throws Exception {
+        // given
+        seed();
+        HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        LoadGenerator generator = new LoadGenerator(httpClient, endpoints(parseMix(mix)));
+
+        // when
+        LoadGenerator.Report report = rate > 0
+                ? generator.runOpenLoop(rate, maxInFlight, warmup, duration)
+                : generator.runClosedLoop(concurrency, warmup, duration);
+
+        // then
+        log.info("Load run against {} users took {}:\n{}", users, report.elapsed(), report.summary());
+        report.writeHistograms(Path.of("target", "load"));
+        for (String endpoint : report.latencies().keySet()) {
+            assertTrue(report.latencies().get(endpoint).getTotalCount() > 0, endpoint + " was never called");
+            assertTrue(report.errorRate(endpoint) <= maxErrorRate,
+                    endpoint + " failed " + report.errors().get(endpoint) + " requests");
+        }
+    }
+
+    private List<LoadGenerator.Endpoint> endpoints(Map<String, Integer> weights) {
+        return List.of(
+                new LoadGenerator.Endpoint("login", weights.getOrDefault("login", 0), () -> {
+                    int user = randomUser();
+                    return request("/login")
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .POST(HttpRequest.BodyPublishers.ofString(
+                                    "{\"login\":\"load" + user + "\",\"password\":\"" + PASSWORD + "\"}"))
+                            .build();
+                }),
+                new LoadGenerator.Endpoint("search", weights.getOrDefault("search", 0), () -> {
+                    String id = String.valueOf(randomUser());
+                    String prefix = "load" + id.substring(0, Math.max(1, id.length() - 2));
+                    return authorized("/users?name=" + prefix + "&size=10", randomUser()).GET().build();
+                }),
+                new LoadGenerator.Endpoint("user", weights.getOrDefault("user", 0),
+                        () -> authorized("/users/" + ids.get(randomUser() - 1), randomUser()).GET().build()),
+                new LoadGenerator.Endpoint("transfer", weights.getOrDefault("transfer", 0), () -> {
+                    int sender = randomUser();
+                    int receiver = randomUser();
+                    while (users > 1 && receiver == sender) {
+                        receiver = randomUser();
+                    }
+                    return authorized("/users/account?money=1&receiverId=" + ids.get(receiver - 1), sender)
+                            .method("PATCH", HttpRequest.BodyPublishers.noBody())
+                            .build();
+                })
+        );
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).timeout(Duration.ofSeconds(30));
+    }
+
+    private HttpRequest.Builder authorized(String path, int user) {
+        return request(path).header(HttpHeaders.AUTHORIZATION, "Bearer " + tokens.get(user - 1));
+    }
+
+    private int randomUser() {
+        return ThreadLocalRandom.current().nextInt(users) + 1;
+    }
+
+    private void seed() {
+        // Users "load1".."loadN" share one password hash; balances are large enough that transfers never run dry.
+        long start = System.currentTimeMillis();
+        String hash = passwordHashingService.encode(PASSWORD);
+        jdbcTemplate.update("INSERT INTO app_user (first_name, last_name, birth_date, login, password, account, initial_deposit, last_accrued_at, ledger_seq) " +
+                "SELECT 'First' || i, 'Last' || i, DATE '1950-01-01' + (i % 20454), 'load' || i, ?, 1000000, 1000000, now(), 0 " +
+                "FROM generate_series(1, ?) i ON CONFLICT (login) DO NOTHING", hash, users);
+        jdbcTemplate.update("INSERT INTO email (name, name_key, user_id) " +
+                "SELECT login || '@mail.com', login || '@mail.com', id FROM app_user WHERE login LIKE 'load%' ON CONFLICT DO NOTHING");
+        jdbcTemplate.update("INSERT INTO phone_number (number, number_key, user_id) " +
+                "SELECT (70000000000 + id)::text, 70000000000 + id, id FROM app_user WHERE login LIKE 'load%' ON CONFLICT DO NOTHING");
+        jdbcTemplate.execute("ANALYZE");
+
+        ids.addAll(jdbcTemplate.queryForList("SELECT id FROM app_user WHERE login ~ '^load[0-9]+$' " +
+                "ORDER BY substring(login FROM 5)::int LIMIT ?", Long.class, users));
+        for (int user = 1; user <= users; user++) {
+            tokens.add(userAuthProvider.createToken("load" + user));
+        }
+        log.info("Seeded {} users in {} ms.", users, System.currentTimeMillis() - start);
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] weight = part.trim().split("=");
+            weights.put(weight[0].trim(), Integer.parseInt(weight[1].trim()));
+        }
+        return weights;
+    }
+}
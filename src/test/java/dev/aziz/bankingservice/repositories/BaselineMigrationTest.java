@@ -0,0 +1,62 @@
+package dev.aziz.bankingservice.repositories;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Starts the application against a database that ddl-auto created before migrations existed. It has to be
+ * baselined at V1, migrated by the later versions and then pass schema validation without losing its rows.
+ */
+@SpringBootTest
+class BaselineMigrationTest {
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void preSeriesDatabase(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.start();
+        new ResourceDatabasePopulator(new ClassPathResource("db/pre-series-schema.sql")).execute(postgres.getPostgresDatabase());
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    @AfterAll
+    static void stopDatabase() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void existingDatabaseIsBaselinedAndMigratedTest() {
+        // when
+        List<Map<String, Object>> history = jdbcTemplate.queryForList(
+                "SELECT version, type, success FROM flyway_schema_history WHERE version IS NOT NULL ORDER BY installed_rank");
+
+        // then
+        assertEquals("1", history.get(0).get("version"));
+        assertEquals("BASELINE", history.get(0).get("type"));
+        assertTrue(history.stream().skip(1).allMatch(row -> Boolean.TRUE.equals(row.get("success"))), history::toString);
+        assertTrue(history.stream().anyMatch(row -> "1.1".equals(row.get("version"))), history::toString);
+        assertEquals("legacy@mail.com", jdbcTemplate.queryForObject("SELECT name_key FROM email", String.class));
+        assertEquals(79770000000L, jdbcTemplate.queryForObject("SELECT number_key FROM phone_number", Long.class));
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT ledger_seq FROM app_user WHERE login = 'legacy'", Long.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM balance_snapshot", Integer.class));
+    }
+}
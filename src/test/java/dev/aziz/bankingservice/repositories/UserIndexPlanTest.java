@@ -0,0 +1,80 @@
+package dev.aziz.bankingservice.repositories;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@AutoConfigureEmbeddedDatabase(type = AutoConfigureEmbeddedDatabase.DatabaseType.POSTGRES,
+        provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+@Transactional
+class UserIndexPlanTest {
+
+    private static final int USERS = 100_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // Seeded inside the test transaction and rolled back afterwards; birth dates span 1950-2005.
+        jdbcTemplate.update("INSERT INTO app_user (first_name, last_name, birth_date, login, password, account, initial_deposit) " +
+                "SELECT 'First', 'Last', DATE '1950-01-01' + (i % 20454), 'explain' || i, 'password', 1000, 1000 " +
+                "FROM generate_series(1, ?) i", USERS);
+        jdbcTemplate.execute("ANALYZE app_user");
+    }
+
+    @Test
+    void birthYearRangeUsesIndexTest() {
+        // when
+        String plan = explain("SELECT id FROM app_user WHERE birth_date >= DATE '2004-01-01'");
+
+        // then
+        assertTrue(plan.contains("idx_app_user_birth_date"), plan);
+        assertFalse(plan.contains("Seq Scan"), plan);
+    }
+
+    @Test
+    void extractedBirthYearCannotUseIndexTest() {
+        // when
+        String plan = explain("SELECT id FROM app_user WHERE EXTRACT(YEAR FROM birth_date) > 2003");
+
+        // then
+        assertTrue(plan.contains("Seq Scan"), plan);
+    }
+
+    @Test
+    void loginPrefixUsesPatternIndexTest() {
+        // when
+        String plan = explain("SELECT id FROM app_user WHERE login LIKE 'explain1234%'");
+
+        // then
+        assertTrue(plan.contains("idx_app_user_login_pattern"), plan);
+    }
+
+    @Test
+    void contactsByOwnerUseForeignKeyIndexTest() {
+        // given
+        jdbcTemplate.update("INSERT INTO email (name, name_key, user_id) SELECT login || '@mail.com', login || '@mail.com', id FROM app_user");
+        jdbcTemplate.execute("ANALYZE email");
+
+        // when
+        String plan = explain("SELECT id FROM email WHERE user_id = 42");
+
+        // then
+        assertTrue(plan.contains("idx_email_user_id"), plan);
+    }
+
+    private String explain(String sql) {
+        List<String> lines = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class);
+        return String.join("\n", lines);
+    }
+}
@@ -0,0 +1,172 @@
+package dev.aziz.bankingservice.services;
+
+import dev.aziz.bankingservice.dtos.BatchTransferResultDto;
+import dev.aziz.bankingservice.dtos.TransferItemDto;
+import dev.aziz.bankingservice.dtos.UserDto;
+import dev.aziz.bankingservice.exceptions.AppException;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@AutoConfigureEmbeddedDatabase(type = AutoConfigureEmbeddedDatabase.DatabaseType.POSTGRES,
+        provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+class BatchTransferServiceTest {
+
+    private static final AtomicInteger LOGINS = new AtomicInteger();
+
+    @Autowired
+    private BatchTransferService batchTransferService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void sendMoneyBatchWithUnaccruedAccountsTest() {
+        // given
+        UserDto sender = seed(BigDecimal.valueOf(1000), false);
+        UserDto receiver = seed(BigDecimal.valueOf(1000), false);
+
+        // when
+        BatchTransferResultDto result = batchTransferService.sendMoneyBatch(sender, List.of(item(receiver, 100)));
+
+        // then
+        assertEquals(1, result.getCompleted());
+        assertBalance(sender, 900);
+        assertBalance(receiver, 1100);
+        assertNull(jdbcTemplate.queryForObject("SELECT last_accrued_at FROM app_user WHERE id = ?", Object.class, sender.getId()));
+    }
+
+    @Test
+    void sendMoneyBatchTest() {
+        // given
+        UserDto sender = seed(BigDecimal.valueOf(1000), true);
+        UserDto first = seed(BigDecimal.valueOf(500), true);
+        UserDto second = seed(BigDecimal.valueOf(500), true);
+
+        // when
+        BatchTransferResultDto result = batchTransferService.sendMoneyBatch(sender, List.of(item(first, 100), item(second, 250)));
+
+        // then
+        assertEquals(2, result.getCompleted());
+        assertEquals(0, result.getRejected());
+        assertEquals(0, BigDecimal.valueOf(350).compareTo(result.getTotal()));
+        assertEquals(0, BigDecimal.valueOf(650).compareTo(result.getAccount()));
+        assertBalance(sender, 650);
+        assertBalance(first, 600);
+        assertBalance(second, 750);
+        assertEquals(List.of("TRANSFER_DEBIT 1 900.000", "TRANSFER_DEBIT 2 650.000"), ledger(sender));
+        assertEquals(List.of("TRANSFER_CREDIT 1 600.000"), ledger(first));
+        assertEquals(List.of("TRANSFER_CREDIT 1 750.000"), ledger(second));
+        assertEquals(2L, ledgerSeq(sender));
+        assertEquals(1L, version(sender));
+        assertEquals(1L, version(first));
+        assertEquals(1L, version(second));
+    }
+
+    @Test
+    void sendMoneyBatchOverBalanceIsRejectedTest() {
+        // given
+        UserDto sender = seed(BigDecimal.valueOf(100), true);
+        UserDto receiver = seed(BigDecimal.valueOf(100), true);
+
+        // when
+        AppException exception = assertThrows(AppException.class, () -> {
+            batchTransferService.sendMoneyBatch(sender, List.of(item(receiver, 60), item(receiver, 60)));
+        });
+
+        // then
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        assertEquals("You do not have enough money.", exception.getMessage());
+        assertBalance(sender, 100);
+        assertBalance(receiver, 100);
+        assertEquals(List.of(), ledger(sender));
+        assertEquals(List.of(), ledger(receiver));
+        assertEquals(0L, version(sender));
+    }
+
+    @Test
+    void sendMoneyBatchRejectsInvalidItemsTest() {
+        // given
+        UserDto sender = seed(BigDecimal.valueOf(1000), true);
+        UserDto receiver = seed(BigDecimal.valueOf(1000), true);
+        List<TransferItemDto> items = List.of(
+                TransferItemDto.builder().receiverId(Long.MAX_VALUE).amount(BigDecimal.TEN).build(),
+                item(receiver, 0),
+                item(receiver, -5),
+                item(receiver, 50));
+
+        // when
+        BatchTransferResultDto result = batchTransferService.sendMoneyBatch(sender, items);
+
+        // then
+        assertEquals(1, result.getCompleted());
+        assertEquals(3, result.getRejected());
+        assertEquals("User by id " + Long.MAX_VALUE + " not found", result.getResults().get(0).getMessage());
+        assertEquals("Amount should be positive.", result.getResults().get(1).getMessage());
+        assertEquals("Amount should be positive.", result.getResults().get(2).getMessage());
+        assertTrue(result.getResults().get(3).isCompleted());
+        assertBalance(sender, 950);
+        assertBalance(receiver, 1050);
+        assertEquals(List.of("TRANSFER_DEBIT 1 950.000"), ledger(sender));
+        assertEquals(List.of("TRANSFER_CREDIT 1 1050.000"), ledger(receiver));
+    }
+
+    @Test
+    void sendMoneyBatchToSameReceiverTwiceTest() {
+        // given
+        UserDto sender = seed(BigDecimal.valueOf(1000), true);
+        UserDto receiver = seed(BigDecimal.valueOf(1000), true);
+
+        // when
+        BatchTransferResultDto result = batchTransferService.sendMoneyBatch(sender, List.of(item(receiver, 100), item(receiver, 200)));
+
+        // then
+        assertEquals(2, result.getCompleted());
+        assertBalance(sender, 700);
+        assertBalance(receiver, 1300);
+        assertEquals(List.of("TRANSFER_CREDIT 1 1100.000", "TRANSFER_CREDIT 2 1300.000"), ledger(receiver));
+        assertEquals(2L, ledgerSeq(receiver));
+        assertEquals(1L, version(receiver));
+    }
+
+    private static TransferItemDto item(UserDto receiver, long amount) {
+        return TransferItemDto.builder().receiverId(receiver.getId()).amount(BigDecimal.valueOf(amount)).build();
+    }
+
+    private void assertBalance(UserDto user, long expected) {
+        BigDecimal account = jdbcTemplate.queryForObject("SELECT account FROM app_user WHERE id = ?", BigDecimal.class, user.getId());
+        assertEquals(0, BigDecimal.valueOf(expected).compareTo(account), () -> user.getLogin() + " has " + account);
+    }
+
+    private List<String> ledger(UserDto user) {
+        return jdbcTemplate.queryForList("SELECT type || ' ' || seq || ' ' || balance_after FROM ledger_entry " +
+                "WHERE user_id = ? ORDER BY seq", String.class, user.getId());
+    }
+
+    private long ledgerSeq(UserDto user) {
+        return jdbcTemplate.queryForObject("SELECT ledger_seq FROM app_user WHERE id = ?", Long.class, user.getId());
+    }
+
+    private long version(UserDto user) {
+        return jdbcTemplate.queryForObject("SELECT version FROM app_user WHERE id = ?", Long.class, user.getId());
+    }
+
+    private UserDto seed(BigDecimal balance, boolean accrued) {
+        String login = "batch" + LOGINS.incrementAndGet();
+        jdbcTemplate.update("INSERT INTO app_user (first_name, last_name, birth_date, login, password, account, initial_deposit, last_accrued_at, ledger_seq) " +
+                "VALUES ('First', 'Last', DATE '1990-01-01', ?, 'password', ?, ?, " + (accrued ? "now()" : "NULL") + ", 0)",
+                login, balance, balance);
+        Long id = jdbcTemplate.queryForObject("SELECT id FROM app_user WHERE login = ?", Long.class, login);
+        return UserDto.builder().id(id).login(login).build();
+    }
+}
@@ -0,0 +1,96 @@
+package dev.aziz.bankingservice.services;
+
+import dev.aziz.bankingservice.dtos.UserDto;
+import dev.aziz.bankingservice.dtos.UserSummaryDto;
+import dev.aziz.bankingservice.entities.Email;
+import dev.aziz.bankingservice.entities.PhoneNumber;
+import dev.aziz.bankingservice.entities.User;
+import dev.aziz.bankingservice.mappers.UserMapper;
+import dev.aziz.bankingservice.repositories.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest
+@AutoConfigureEmbeddedDatabase(type = AutoConfigureEmbeddedDatabase.DatabaseType.POSTGRES,
+        provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+class ContactChangeConcurrencyTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @SpyBean
+    private UniquenessFilter uniquenessFilter;
+
+    @Test
+    void contactChangeIsRetriedAfterConcurrentTransferTest() {
+        // given
+        User owner = save("contacts0", "79780000000");
+        User other = save("contacts1", "79780000001");
+        UserDto ownerDto = userMapper.toUserDto(owner);
+        UserDto otherDto = userMapper.toUserDto(other);
+        long versionBefore = version(owner);
+        double retriesBefore = meterRegistry.counter("contact.retries").count();
+
+        // A transfer to the owner commits after the contact change has read the user and before it commits.
+        AtomicBoolean transferred = new AtomicBoolean();
+        doAnswer(invocation -> {
+            if (transferred.compareAndSet(false, true)) {
+                CompletableFuture.runAsync(() -> userService.sendMoney(otherDto, BigDecimal.TEN, owner.getId())).join();
+            }
+            return invocation.callRealMethod();
+        }).when(uniquenessFilter).putEmail(any());
+
+        // when
+        UserSummaryDto summary = userService.addEmail(ownerDto, "contacts0-second@mail.com");
+
+        // then
+        assertTrue(transferred.get());
+        assertEquals(2, summary.getEmails().size());
+        assertEquals(1, meterRegistry.counter("contact.retries").count() - retriesBefore);
+        assertEquals(0, BigDecimal.valueOf(1010).compareTo(
+                jdbcTemplate.queryForObject("SELECT account FROM app_user WHERE id = ?", BigDecimal.class, owner.getId())));
+        assertEquals(versionBefore + 2, version(owner));
+    }
+
+    private long version(User user) {
+        return jdbcTemplate.queryForObject("SELECT version FROM app_user WHERE id = ?", Long.class, user.getId());
+    }
+
+    private User save(String login, String phoneNumber) {
+        User user = User.builder().login(login).firstName("First").lastName("Last").password("password")
+                .birthDate(LocalDate.of(1990, 1, 1)).initialDeposit(BigDecimal.valueOf(1000)).account(BigDecimal.valueOf(1000))
+                .lastAccruedAt(Instant.now()).ledgerSeq(0L).build();
+        user.setEmails(new ArrayList<>(List.of(Email.builder().name(login + "@mail.com").user(user).build())));
+        user.setPhoneNumbers(new ArrayList<>(List.of(PhoneNumber.builder().number(phoneNumber).user(user).build())));
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,98 @@
+package dev.aziz.bankingservice.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import dev.aziz.bankingservice.dtos.UserSummaryDto;
+import dev.aziz.bankingservice.entities.Email;
+import dev.aziz.bankingservice.entities.IdempotencyKey;
+import dev.aziz.bankingservice.entities.PhoneNumber;
+import dev.aziz.bankingservice.exceptions.AppException;
+import dev.aziz.bankingservice.repositories.IdempotencyKeyRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @InjectMocks
+    private IdempotencyService idempotencyService;
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Spy
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Spy
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(idempotencyService, "ttl", Duration.ofHours(24));
+        ReflectionTestUtils.setField(idempotencyService, "cacheMaxSize", 100L);
+        idempotencyService.init();
+    }
+
+    @Test
+    void claimAndReplayTest() {
+        // given
+        UserSummaryDto response = UserSummaryDto.builder().id(1L).login("azizdev").firstName("Aziz").lastName("Abdukarimov")
+                .birthDate(LocalDate.parse("2000-01-26")).account(BigDecimal.valueOf(1200))
+                .emails(List.of(Email.builder().id(1L).name("aziz@mail.com").build()))
+                .phoneNumbers(List.of(PhoneNumber.builder().id(1L).number("79991234567").build()))
+                .build();
+        String requestHash = IdempotencyService.requestHash(BigDecimal.valueOf(100), 2L);
+
+        // when
+        when(idempotencyKeyRepository.findByUserIdAndKey(1L, "key-1")).thenReturn(Optional.empty());
+        Optional<UserSummaryDto> claimed = idempotencyService.claim(1L, "key-1", requestHash);
+
+        ArgumentCaptor<IdempotencyKey> saved = ArgumentCaptor.forClass(IdempotencyKey.class);
+        verify(idempotencyKeyRepository).saveAndFlush(saved.capture());
+        when(idempotencyKeyRepository.findByUserIdAndKey(1L, "key-1")).thenReturn(Optional.of(saved.getValue()));
+        idempotencyService.complete(1L, "key-1", response);
+        Optional<UserSummaryDto> replayed = idempotencyService.find(1L, "key-1", requestHash);
+
+        // then
+        assertTrue(claimed.isEmpty());
+        assertTrue(replayed.isPresent());
+        assertEquals(response.getAccount(), replayed.get().getAccount());
+        assertEquals("aziz@mail.com", replayed.get().getEmails().get(0).getName());
+        assertEquals("79991234567", replayed.get().getPhoneNumbers().get(0).getNumber());
+        assertSame(replayed.get(), idempotencyService.findCached(1L, "key-1", requestHash).orElseThrow());
+    }
+
+    @Test
+    void keyReusedForDifferentRequestTest() {
+        // given
+        UserSummaryDto response = UserSummaryDto.builder().id(1L).build();
+        idempotencyService.cache(1L, "key-1", IdempotencyService.requestHash(BigDecimal.valueOf(100), 2L), response);
+
+        // when
+        AppException exception = assertThrows(AppException.class, () -> {
+            idempotencyService.findCached(1L, "key-1", IdempotencyService.requestHash(BigDecimal.valueOf(500), 2L));
+        });
+
+        // then
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, exception.getStatus());
+    }
+}
@@ -0,0 +1,57 @@
+package dev.aziz.bankingservice.services;
+
+import dev.aziz.bankingservice.entities.User;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InterestCalculatorTest {
+
+    @Test
+    void accruedBalanceCompoundsPerPeriodTest() {
+        // when
+        BigDecimal balance = InterestCalculator.accruedBalance(BigDecimal.valueOf(1000), BigDecimal.valueOf(1000), 2);
+
+        // then
+        assertEquals(new BigDecimal("1102.500"), balance);
+    }
+
+    @Test
+    void accruedBalanceIsCappedTest() {
+        // when
+        BigDecimal balance = InterestCalculator.accruedBalance(BigDecimal.valueOf(1000), BigDecimal.valueOf(1000), 100_000);
+
+        // then
+        assertEquals(0, new BigDecimal("2070").compareTo(balance));
+    }
+
+    @Test
+    void accrueAdvancesLastAccruedAtByWholePeriodsTest() {
+        // given
+        Instant lastAccruedAt = Instant.parse("2024-01-01T00:00:00Z");
+        User user = User.builder().account(BigDecimal.valueOf(1000)).initialDeposit(BigDecimal.valueOf(1000))
+                .lastAccruedAt(lastAccruedAt).build();
+
+        // when
+        InterestCalculator.accrue(user, lastAccruedAt.plusSeconds(90));
+
+        // then
+        assertEquals(new BigDecimal("1050.000"), user.getAccount());
+        assertEquals(lastAccruedAt.plusSeconds(60), user.getLastAccruedAt());
+    }
+
+    @Test
+    void accrueWithoutLastAccruedAtTest() {
+        // given
+        User user = User.builder().account(BigDecimal.valueOf(1000)).initialDeposit(BigDecimal.valueOf(1000)).build();
+
+        // when
+        InterestCalculator.accrue(user, Instant.now());
+
+        // then
+        assertEquals(BigDecimal.valueOf(1000), user.getAccount());
+    }
+}
@@ -0,0 +1,75 @@
+package dev.aziz.bankingservice.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class LoginPrefixIndexTest {
+
+    private LoginPrefixIndex loginPrefixIndex;
+
+    @BeforeEach
+    void setUp() {
+        loginPrefixIndex = new LoginPrefixIndex(mock(JdbcTemplate.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(loginPrefixIndex, "enabled", true);
+        ReflectionTestUtils.setField(loginPrefixIndex, "maxSize", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(loginPrefixIndex, "maxMatches", 3);
+        loginPrefixIndex.load();
+    }
+
+    @Test
+    void idsWithPrefixTest() {
+        // given
+        loginPrefixIndex.add("alice", 1L);
+        loginPrefixIndex.add("alina", 2L);
+        loginPrefixIndex.add("bob", 3L);
+        loginPrefixIndex.add("al", 4L);
+
+        // when
+        Optional<List<Long>> al = loginPrefixIndex.idsWithPrefix("ali");
+        Optional<List<Long>> none = loginPrefixIndex.idsWithPrefix("carol");
+
+        // then
+        assertEquals(Optional.of(List.of(1L, 2L)), al);
+        assertEquals(Optional.of(List.of()), none);
+        assertEquals(4, loginPrefixIndex.size());
+    }
+
+    @Test
+    void tooManyMatchesFallsBackTest() {
+        // given
+        for (long i = 0; i < 4; i++) {
+            loginPrefixIndex.add("user" + i, i);
+        }
+
+        // when
+        Optional<List<Long>> ids = loginPrefixIndex.idsWithPrefix("user");
+
+        // then
+        assertTrue(ids.isEmpty());
+    }
+
+    @Test
+    void exceedingBudgetDisablesIndexTest() {
+        // given
+        ReflectionTestUtils.setField(loginPrefixIndex, "maxSize", DataSize.ofBytes(LoginPrefixIndex.ENTRY_OVERHEAD_BYTES * 2));
+
+        // when
+        loginPrefixIndex.add("a", 1L);
+        loginPrefixIndex.add("b", 2L);
+
+        // then
+        assertTrue(loginPrefixIndex.idsWithPrefix("a").isEmpty());
+        assertEquals(0, loginPrefixIndex.size());
+        assertEquals(0, loginPrefixIndex.sizeInBytes());
+    }
+}
@@ -0,0 +1,85 @@
+package dev.aziz.bankingservice.services;
+
+import dev.aziz.bankingservice.exceptions.AppException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PasswordHashingServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private PasswordHashingService passwordHashingService;
+
+    @AfterEach
+    void tearDown() {
+        passwordHashingService.shutdown();
+    }
+
+    @Test
+    void saturatedPoolRejectsWithTooManyRequestsTest() throws Exception {
+        // given
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+        when(passwordEncoder.encode(any())).thenAnswer(invocation -> {
+            release.await();
+            return "hash";
+        });
+        passwordHashingService = create(passwordEncoder, 1, 1);
+
+        // when
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> passwordHashingService.encode("first"));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> passwordHashingService.encode("second"));
+        while (meterRegistry.get("password.hashing.queue.depth").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+        AppException exception = assertThrows(AppException.class, () -> passwordHashingService.encode("third"));
+        AppException asyncException = assertThrows(AppException.class, () -> passwordHashingService.encodeAsync("fourth"));
+        release.countDown();
+
+        // then
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getStatus());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, asyncException.getStatus());
+        assertEquals("hash", running.get());
+        assertEquals("hash", queued.get());
+        assertEquals(2, meterRegistry.counter("password.hash.rejected").count());
+        assertEquals(2, meterRegistry.timer("password.hash", "operation", "encode").count());
+    }
+
+    @Test
+    void needsRehashWhenCostIsRaisedTest() {
+        // given
+        String oldHash = new BCryptPasswordEncoder(4).encode("password");
+        passwordHashingService = create(new BCryptPasswordEncoder(5), 1, 1);
+
+        // when
+        boolean matches = passwordHashingService.matches("password", oldHash);
+        boolean oldNeedsRehash = passwordHashingService.needsRehash(oldHash);
+        boolean newNeedsRehash = passwordHashingService.needsRehash(passwordHashingService.encode("password"));
+
+        // then
+        assertTrue(matches);
+        assertTrue(oldNeedsRehash);
+        assertFalse(newNeedsRehash);
+    }
+
+    private PasswordHashingService create(PasswordEncoder passwordEncoder, int threads, int queueCapacity) {
+        PasswordHashingService service = new PasswordHashingService(passwordEncoder, meterRegistry);
+        ReflectionTestUtils.setField(service, "threads", threads);
+        ReflectionTestUtils.setField(service, "queueCapacity", queueCapacity);
+        service.init();
+        return service;
+    }
+}
@@ -0,0 +1,87 @@
+package dev.aziz.bankingservice.services;
+
+import dev.aziz.bankingservice.exceptions.AppException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+
+    @Test
+    void concurrentCallersShareOneLoadTest() throws Exception {
+        // given
+        AtomicInteger loaderCalls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        // when
+        List<Future<String>> results = callConcurrently(() -> singleFlight.load(1L, () -> {
+            loaderCalls.incrementAndGet();
+            await(release);
+            return "user-1";
+        }), release);
+
+        // then
+        for (Future<String> result : results) {
+            assertEquals("user-1", result.get());
+        }
+        assertEquals(1, loaderCalls.get());
+        assertEquals(1, singleFlight.loads());
+        assertEquals(CALLERS - 1, singleFlight.coalesced());
+        assertEquals("again", singleFlight.load(1L, () -> "again"));
+    }
+
+    @Test
+    void waitersReceiveLoaderExceptionTest() throws Exception {
+        // given
+        CountDownLatch release = new CountDownLatch(1);
+
+        // when
+        List<Future<String>> results = callConcurrently(() -> singleFlight.load(1L, () -> {
+            await(release);
+            throw new AppException("User not found", HttpStatus.NOT_FOUND);
+        }), release);
+
+        // then
+        for (Future<String> result : results) {
+            ExecutionException exception = assertThrows(ExecutionException.class, result::get);
+            assertEquals("User not found", exception.getCause().getMessage());
+        }
+    }
+
+    private List<Future<String>> callConcurrently(Callable<String> call, CountDownLatch release) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(pool.submit(call));
+        }
+        while (singleFlight.loads() + singleFlight.coalesced() < CALLERS) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        pool.shutdown();
+        return results;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
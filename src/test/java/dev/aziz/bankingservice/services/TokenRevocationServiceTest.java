@@ -0,0 +1,66 @@
+package dev.aziz.bankingservice.services;
+
+import dev.aziz.bankingservice.entities.RevokedToken;
+import dev.aziz.bankingservice.repositories.RevokedTokenRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationServiceTest {
+
+    @InjectMocks
+    private TokenRevocationService tokenRevocationService;
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Test
+    void revokeTest() {
+        // when
+        tokenRevocationService.revoke("jti-1", Instant.now().plusSeconds(3600));
+
+        // then
+        assertTrue(tokenRevocationService.isRevoked("jti-1"));
+        assertFalse(tokenRevocationService.isRevoked("jti-2"));
+        verify(revokedTokenRepository, times(1)).save(any(RevokedToken.class));
+    }
+
+    @Test
+    void revokeExpiredTokenTest() {
+        // when
+        tokenRevocationService.revoke("jti-1", Instant.now().minusSeconds(1));
+
+        // then
+        assertFalse(tokenRevocationService.isRevoked("jti-1"));
+        verify(revokedTokenRepository, never()).save(any(RevokedToken.class));
+    }
+
+    @Test
+    void loadAndSweepTest() {
+        // given
+        RevokedToken expiring = RevokedToken.builder().jti("old").expiresAt(Instant.now().minusSeconds(120))
+                .revokedAt(Instant.now().minusSeconds(600)).build();
+        RevokedToken active = RevokedToken.builder().jti("new").expiresAt(Instant.now().plusSeconds(3600))
+                .revokedAt(Instant.now().minusSeconds(600)).build();
+
+        // when
+        when(revokedTokenRepository.findAllByExpiresAtAfter(any())).thenReturn(List.of(expiring, active));
+        tokenRevocationService.load();
+        tokenRevocationService.sweep();
+
+        // then
+        assertFalse(tokenRevocationService.isRevoked("old"));
+        assertTrue(tokenRevocationService.isRevoked("new"));
+        verify(revokedTokenRepository, times(1)).deleteExpired(any());
+    }
+}
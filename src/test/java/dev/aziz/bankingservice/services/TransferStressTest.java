@@ -0,0 +1,252 @@
+package dev.aziz.bankingservice.services;
+
+import dev.aziz.bankingservice.dtos.BatchTransferResultDto;
+import dev.aziz.bankingservice.dtos.TransferItemDto;
+import dev.aziz.bankingservice.dtos.TransferItemResultDto;
+import dev.aziz.bankingservice.dtos.UserDto;
+import dev.aziz.bankingservice.exceptions.AppException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Random transfers between a small set of accounts while the accrual sweep runs against the same
+ * rows. A fifth of the transfers go back and forth inside a few fixed pairs and a third involve
+ * one of three hot accounts. Some transfers and batch items go to the sender's own account and must
+ * be rejected. Sizes are {@code stress.*} system properties, so the same test doubles
+ * as a benchmark for the transfer engine.
+ */
+@Slf4j
+@SpringBootTest(properties = "accrual.sweep-enabled=true")
+@AutoConfigureEmbeddedDatabase(type = AutoConfigureEmbeddedDatabase.DatabaseType.POSTGRES,
+        provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+class TransferStressTest {
+
+    private static final int HOT_ACCOUNTS = 3;
+    private static final int CYCLE_PAIRS = 5;
+    private static final double SELF_TRANSFER_SHARE = 0.1;
+    private static final String SELF_TRANSFER = "You cannot send money to yourself.";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private BatchTransferService batchTransferService;
+
+    @Autowired
+    private AccrualService accrualService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${stress.accounts:100}")
+    private int accounts;
+
+    @Value("${stress.transfers:2000}")
+    private int transfers;
+
+    @Value("${stress.threads:8}")
+    private int threads;
+
+    private final List<UserDto> users = new ArrayList<>();
+    private final Histogram latencies = new ConcurrentHistogram(3);
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder insufficientFunds = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder selfTransfers = new LongAdder();
+    private final LongAdder selfTransfersRejected = new LongAdder();
+    private final Queue<RuntimeException> unexpected = new ConcurrentLinkedQueue<>();
+
+    @Test
+    void transfersConserveMoneyUnderContentionTest() throws Exception {
+        // given
+        seed();
+        BigDecimal totalBefore = totalBalance();
+        long lastLedgerIdBefore = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM ledger_entry", Long.class);
+        double retriesBefore = meterRegistry.counter("transfer.retries").count();
+
+        // when
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger sweeps = new AtomicInteger();
+        Thread accrual = new Thread(() -> {
+            while (running.get()) {
+                // Forget finished runs so every pass sweeps the seeded accounts again, racing the transfers for row locks.
+                jdbcTemplate.update("DELETE FROM accrual_checkpoint");
+                accrualService.incrementUserAccount();
+                sweeps.incrementAndGet();
+            }
+        }, "stress-accrual");
+        accrual.start();
+
+        long startedAt = System.nanoTime();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(transfers);
+        for (int i = 0; i < transfers; i++) {
+            workers.execute(() -> {
+                try {
+                    transferRandomly();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.MINUTES), "Transfers did not finish in time");
+        long elapsedNanos = System.nanoTime() - startedAt;
+        workers.shutdown();
+        running.set(false);
+        accrual.join();
+
+        // then
+        BigDecimal totalAfter = totalBalance();
+        BigDecimal accrued = jdbcTemplate.queryForObject("SELECT COALESCE(SUM(amount), 0) FROM ledger_entry " +
+                "WHERE type = 'ACCRUAL' AND id > ? AND user_id IN (SELECT id FROM app_user WHERE login LIKE 'stress%')",
+                BigDecimal.class, lastLedgerIdBefore);
+        double retries = meterRegistry.counter("transfer.retries").count() - retriesBefore;
+        log.info("{} transfers in {} ms ({} transfers/sec) against {} accounts with {} threads, {} accrual sweeps: " +
+                        "{} completed, {} insufficient funds, {} conflicts, {} self-transfers rejected, {} retries; " +
+                        "latency p50 {} ms, p99 {} ms, p999 {} ms, max {} ms. Accrued {}.",
+                transfers, elapsedNanos / 1_000_000, String.format("%.1f", transfers * 1e9 / elapsedNanos), accounts, threads,
+                sweeps.get(), completed.sum(), insufficientFunds.sum(), conflicts.sum(), selfTransfersRejected.sum(), (long) retries,
+                millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(99)),
+                millis(latencies.getValueAtPercentile(99.9)), millis(latencies.getMaxValue()), accrued);
+
+        assertTrue(unexpected.isEmpty(), () -> "Unexpected failures: " + unexpected);
+        assertTrue(completed.sum() > 0);
+        assertTrue(selfTransfers.sum() > 0);
+        assertEquals(selfTransfers.sum(), selfTransfersRejected.sum(), "Self-transfers were not all rejected");
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ledger_entry WHERE counterparty_id = user_id", Integer.class));
+        assertEquals(0, totalBefore.add(accrued).compareTo(totalAfter),
+                () -> "Money was created or lost: before " + totalBefore + ", accrued " + accrued + ", after " + totalAfter);
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ledger_entry WHERE balance_after < 0 " +
+                "AND user_id IN (SELECT id FROM app_user WHERE login LIKE 'stress%')", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM app_user WHERE account < 0 AND login LIKE 'stress%'", Integer.class));
+        // Every stored balance is the balance after the account's last ledger entry.
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM app_user u JOIN ledger_entry l " +
+                "ON l.user_id = u.id AND l.seq = u.ledger_seq WHERE u.login LIKE 'stress%' AND l.balance_after <> u.account", Integer.class));
+    }
+
+    private void transferRandomly() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int sender;
+        int receiver;
+        double kind = random.nextDouble();
+        if (kind < 0.05) {
+            batch(random);
+            return;
+        } else if (kind < 0.25) {
+            int pair = random.nextInt(CYCLE_PAIRS) * 2 + HOT_ACCOUNTS;
+            sender = random.nextBoolean() ? pair : pair + 1;
+            receiver = sender == pair ? pair + 1 : pair;
+        } else if (kind < 0.6) {
+            int hot = random.nextInt(HOT_ACCOUNTS);
+            int other = otherThan(hot, random);
+            sender = random.nextBoolean() ? hot : other;
+            receiver = sender == hot ? other : hot;
+        } else {
+            sender = random.nextInt(accounts);
+            receiver = random.nextDouble() < SELF_TRANSFER_SHARE ? sender : otherThan(sender, random);
+        }
+        if (sender == receiver) {
+            selfTransfers.increment();
+        }
+        BigDecimal amount = amount(random);
+        timed(() -> userService.sendMoney(users.get(sender), amount, users.get(receiver).getId()));
+    }
+
+    private void batch(ThreadLocalRandom random) {
+        int sender = random.nextInt(accounts);
+        List<TransferItemDto> items = new ArrayList<>();
+        for (int i = random.nextInt(2, 6); i > 0; i--) {
+            int receiver = random.nextDouble() < SELF_TRANSFER_SHARE ? sender : otherThan(sender, random);
+            items.add(TransferItemDto.builder().receiverId(users.get(receiver).getId()).amount(amount(random)).build());
+        }
+        timed(() -> {
+            BatchTransferResultDto result = batchTransferService.sendMoneyBatch(users.get(sender), items);
+            // Self items are rejected one by one while the rest of the batch goes through.
+            for (TransferItemResultDto item : result.getResults()) {
+                if (item.getReceiverId().equals(users.get(sender).getId())) {
+                    selfTransfers.increment();
+                    if (!item.isCompleted() && SELF_TRANSFER.equals(item.getMessage())) {
+                        selfTransfersRejected.increment();
+                    }
+                }
+            }
+        });
+    }
+
+    private void timed(Runnable transfer) {
+        long startedAt = System.nanoTime();
+        try {
+            transfer.run();
+            completed.increment();
+        } catch (AppException e) {
+            if (e.getStatus() == HttpStatus.CONFLICT) {
+                conflicts.increment();
+            } else if (e.getStatus() == HttpStatus.BAD_REQUEST && "You do not have enough money.".equals(e.getMessage())) {
+                insufficientFunds.increment();
+            } else if (e.getStatus() == HttpStatus.BAD_REQUEST && SELF_TRANSFER.equals(e.getMessage())) {
+                selfTransfersRejected.increment();
+            } else {
+                unexpected.add(e);
+            }
+        } catch (RuntimeException e) {
+            unexpected.add(e);
+        }
+        latencies.recordValue((System.nanoTime() - startedAt) / 1_000);
+    }
+
+    private int otherThan(int account, ThreadLocalRandom random) {
+        int other = random.nextInt(accounts - 1);
+        return other >= account ? other + 1 : other;
+    }
+
+    private static BigDecimal amount(ThreadLocalRandom random) {
+        return BigDecimal.valueOf(random.nextLong(1, 5_000), 2);
+    }
+
+    private static String millis(long micros) {
+        return String.format("%.2f", micros / 1000.0);
+    }
+
+    private void seed() {
+        // Accrual is due on every account, and each one becomes due again at a different second of the minute.
+        jdbcTemplate.update("INSERT INTO app_user (first_name, last_name, birth_date, login, password, account, initial_deposit, last_accrued_at, ledger_seq) " +
+                "SELECT 'First', 'Last', DATE '1990-01-01', 'stress' || i, 'password', 500, 500, now() - make_interval(secs => 60 + i % 60), 0 " +
+                "FROM generate_series(1, ?) i", accounts);
+        for (Map<String, Object> row : jdbcTemplate.queryForList("SELECT id, login FROM app_user WHERE login LIKE 'stress%' ORDER BY id")) {
+            users.add(UserDto.builder().id((Long) row.get("id")).login((String) row.get("login")).build());
+        }
+    }
+
+    private BigDecimal totalBalance() {
+        return jdbcTemplate.queryForObject("SELECT SUM(account) FROM app_user WHERE login LIKE 'stress%'", BigDecimal.class);
+    }
+}
@@ -0,0 +1,91 @@
+package dev.aziz.bankingservice.services;
+
+import dev.aziz.bankingservice.dtos.TransferItemDto;
+import dev.aziz.bankingservice.dtos.UserDto;
+import dev.aziz.bankingservice.entities.Email;
+import dev.aziz.bankingservice.entities.PhoneNumber;
+import dev.aziz.bankingservice.entities.User;
+import dev.aziz.bankingservice.repositories.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureEmbeddedDatabase(type = AutoConfigureEmbeddedDatabase.DatabaseType.POSTGRES,
+        provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+class UserEntityCacheTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private BatchTransferService batchTransferService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void findByLoginIsServedFromCacheTest() {
+        // given
+        save("cached0", "79880000000");
+        userService.findByLogin("cached0");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // when
+        UserDto userDto = userService.findByLogin("cached0");
+
+        // then
+        assertEquals("cached0", userDto.getLogin());
+        assertEquals(1, userDto.getEmails().size());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getSecondLevelCacheHitCount() > 0);
+        assertNotNull(meterRegistry.find("cache.size").tag("cache", "entity-user").gauge());
+    }
+
+    @Test
+    void batchTransferEvictsCachedBalancesTest() {
+        // given
+        User sender = save("cached1", "79880000001");
+        User receiver = save("cached2", "79880000002");
+        userService.findByLogin("cached1");
+        userService.findByLogin("cached2");
+
+        // when
+        batchTransferService.sendMoneyBatch(UserDto.builder().id(sender.getId()).login(sender.getLogin()).build(),
+                List.of(TransferItemDto.builder().receiverId(receiver.getId()).amount(BigDecimal.valueOf(100)).build()));
+
+        // then
+        assertEquals(0, BigDecimal.valueOf(900).compareTo(userRepository.findById(sender.getId()).orElseThrow().getAccount()));
+        assertEquals(0, BigDecimal.valueOf(1100).compareTo(userRepository.findById(receiver.getId()).orElseThrow().getAccount()));
+    }
+
+    private User save(String login, String phone) {
+        User user = User.builder().login(login).firstName("First").lastName("Last")
+                .password("password").birthDate(LocalDate.of(1990, 1, 1))
+                .initialDeposit(BigDecimal.valueOf(1000)).account(BigDecimal.valueOf(1000))
+                .lastAccruedAt(Instant.now()).ledgerSeq(0L).build();
+        user.setEmails(new ArrayList<>(List.of(Email.builder().name(login + "@mail.com").user(user).build())));
+        user.setPhoneNumbers(new ArrayList<>(List.of(PhoneNumber.builder().number(phone).user(user).build())));
+        return userRepository.save(user);
+    }
+}
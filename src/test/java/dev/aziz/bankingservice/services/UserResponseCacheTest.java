@@ -0,0 +1,99 @@
+package dev.aziz.bankingservice.services;
+
+import dev.aziz.bankingservice.dtos.UserDto;
+import dev.aziz.bankingservice.entities.Email;
+import dev.aziz.bankingservice.entities.PhoneNumber;
+import dev.aziz.bankingservice.entities.User;
+import dev.aziz.bankingservice.repositories.UserRepository;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureEmbeddedDatabase(type = AutoConfigureEmbeddedDatabase.DatabaseType.POSTGRES,
+        provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+class UserResponseCacheTest {
+
+    @Autowired
+    private UserResponseCache userResponseCache;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void etagChangesOnlyWhenUserChangesTest() {
+        // given
+        User user = User.builder().login("etag0").firstName("First").lastName("Last")
+                .password("password").birthDate(LocalDate.of(1990, 1, 1))
+                .initialDeposit(BigDecimal.valueOf(1000)).account(BigDecimal.valueOf(1000))
+                .lastAccruedAt(Instant.now()).ledgerSeq(0L).build();
+        user.setEmails(new ArrayList<>(List.of(Email.builder().name("etag0@mail.com").user(user).build())));
+        user.setPhoneNumbers(new ArrayList<>(List.of(PhoneNumber.builder().number("79770000000").user(user).build())));
+        Long id = userRepository.save(user).getId();
+
+        // when
+        String first = userResponseCache.currentEtag(id);
+        UserResponseCache.UserResponse rendered = userResponseCache.get(id, first);
+        UserResponseCache.UserResponse cached = userResponseCache.get(id, userResponseCache.currentEtag(id));
+        userService.addEmail(UserDto.builder().id(id).login("etag0").build(), "etag0b@mail.com");
+        String afterEdit = userResponseCache.currentEtag(id);
+        UserResponseCache.UserResponse reRendered = userResponseCache.get(id, afterEdit);
+
+        // then
+        assertEquals(first, rendered.getEtag());
+        assertSame(rendered, cached);
+        assertNotEquals(first, afterEdit);
+        assertEquals(afterEdit, reRendered.getEtag());
+        assertTrue(new String(reRendered.getBody(), StandardCharsets.UTF_8).contains("etag0b@mail.com"));
+    }
+
+    @Test
+    void staleCachedEntityIsNotRenderedUnderNewEtagTest() {
+        // given
+        User user = User.builder().login("etag1").firstName("First").lastName("Last")
+                .password("password").birthDate(LocalDate.of(1990, 1, 1))
+                .initialDeposit(BigDecimal.valueOf(1000)).account(BigDecimal.valueOf(1000))
+                .lastAccruedAt(Instant.now()).ledgerSeq(0L).build();
+        user.setEmails(new ArrayList<>(List.of(Email.builder().name("etag1@mail.com").user(user).build())));
+        user.setPhoneNumbers(new ArrayList<>(List.of(PhoneNumber.builder().number("79770000001").user(user).build())));
+        Long id = userRepository.save(user).getId();
+        userResponseCache.get(id, userResponseCache.currentEtag(id));
+
+        // when
+        // A JDBC balance write whose eviction lost the race: the second-level cache still holds the old row.
+        jdbcTemplate.update("UPDATE app_user SET account = 1234.5, version = version + 1 WHERE id = ?", id);
+        String etag = userResponseCache.currentEtag(id);
+        UserResponseCache.UserResponse response = userResponseCache.get(id, etag);
+
+        // then
+        assertTrue(etag.contains("1234.5"), etag);
+        assertEquals(etag, response.getEtag());
+        assertTrue(new String(response.getBody(), StandardCharsets.UTF_8).contains("1234.5"));
+    }
+
+    @Test
+    void ifNoneMatchTest() {
+        assertTrue(UserResponseCache.matches("\"1-2-3\"", "\"1-2-3\""));
+        assertTrue(UserResponseCache.matches("\"0-0-0\", W/\"1-2-3\"", "\"1-2-3\""));
+        assertTrue(UserResponseCache.matches("*", "\"1-2-3\""));
+        assertFalse(UserResponseCache.matches("\"1-2-4\"", "\"1-2-3\""));
+        assertFalse(UserResponseCache.matches(null, "\"1-2-3\""));
+    }
+}
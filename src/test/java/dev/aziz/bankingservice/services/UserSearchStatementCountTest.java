@@ -0,0 +1,128 @@
+package dev.aziz.bankingservice.services;
+
+import dev.aziz.bankingservice.dtos.UserScrollDto;
+import dev.aziz.bankingservice.dtos.UserSummaryDto;
+import dev.aziz.bankingservice.entities.Email;
+import dev.aziz.bankingservice.entities.PhoneNumber;
+import dev.aziz.bankingservice.entities.User;
+import dev.aziz.bankingservice.repositories.UserRepository;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureEmbeddedDatabase(type = AutoConfigureEmbeddedDatabase.DatabaseType.POSTGRES,
+        provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+class UserSearchStatementCountTest {
+
+    private static final int USERS = 40;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        if (userRepository.existsByLogin("search0")) {
+            return;
+        }
+        for (int i = 0; i < USERS; i++) {
+            User user = User.builder().login("search" + i).firstName("First" + i).lastName("Last" + i)
+                    .password("password").birthDate(LocalDate.of(1980 + i % 20, 1, 1))
+                    .initialDeposit(BigDecimal.valueOf(1000)).account(BigDecimal.valueOf(1000))
+                    .lastAccruedAt(Instant.now()).build();
+            List<Email> emails = new ArrayList<>();
+            List<PhoneNumber> phoneNumbers = new ArrayList<>();
+            for (int j = 0; j < 2; j++) {
+                emails.add(Email.builder().name("search" + i + "_" + j + "@mail.com").user(user).build());
+                phoneNumbers.add(PhoneNumber.builder().number("7999" + String.format("%03d%02d", i, j)).user(user).build());
+            }
+            user.setEmails(emails);
+            user.setPhoneNumbers(phoneNumbers);
+            userRepository.save(user);
+        }
+    }
+
+    @Test
+    void searchStatementCountDoesNotDependOnPageSizeTest() {
+        // when
+        long smallPage = countStatements(() -> userService.searchUsers(null, null, "search", null, 0, 5, "id", "ASC"));
+        long largePage = countStatements(() -> userService.searchUsers(null, null, "search", null, 0, 30, "id", "ASC"));
+        long withoutLogin = countStatements(() -> userService.searchUsers(1985, null, null, null, 0, 30, "id", "ASC"));
+
+        // then
+        assertEquals(smallPage, largePage);
+        assertTrue(largePage <= 4, "page + count + one batch per contact collection, was " + largePage);
+        assertTrue(withoutLogin <= 4, "page + count + one batch per contact collection, was " + withoutLogin);
+    }
+
+    @Test
+    void searchByContactsTest() {
+        // when
+        List<UserSummaryDto> byEmail = userService.searchUsers(null, null, null, "search3_1@mail.com", 0, 10, "id", "ASC");
+        List<UserSummaryDto> byPhone = userService.searchUsers(null, "799900400", null, null, 0, 10, "id", "ASC");
+        List<UserSummaryDto> byEmailOtherCase = userService.searchUsers(null, null, null, "Search3_1@Mail.com", 0, 10, "id", "ASC");
+        List<UserSummaryDto> byPhoneWithSpaces = userService.searchUsers(null, "7 999 004 00", null, null, 0, 10, "id", "ASC");
+
+        // then
+        assertEquals(1, byEmail.size());
+        assertEquals("search3", byEmail.get(0).getLogin());
+        assertEquals(2, byEmail.get(0).getEmails().size());
+        assertEquals(2, byEmail.get(0).getPhoneNumbers().size());
+        assertEquals(1, byPhone.size());
+        assertEquals("search4", byPhone.get(0).getLogin());
+        assertEquals("search3", byEmailOtherCase.get(0).getLogin());
+        assertEquals("search4", byPhoneWithSpaces.get(0).getLogin());
+    }
+
+    @Test
+    void scrollVisitsEveryUserOnceWithoutCountQueryTest() {
+        // given
+        List<String> logins = new ArrayList<>();
+        String after = "";
+
+        // when
+        do {
+            String cursor = after;
+            UserScrollDto[] scroll = new UserScrollDto[1];
+            long statements = countStatements(() -> scroll[0] = userService.scrollUsers(null, null, "search", null, cursor, 7, "login", "DESC"));
+            assertTrue(statements <= 3, "slice + one batch per contact collection, was " + statements);
+            scroll[0].getUsers().forEach(user -> logins.add(user.getLogin()));
+            after = scroll[0].getNext();
+        } while (after != null);
+
+        // then
+        assertEquals(USERS, logins.size());
+        assertEquals(USERS, new HashSet<>(logins).size());
+        List<String> sorted = new ArrayList<>(logins);
+        sorted.sort(Comparator.reverseOrder());
+        assertEquals(sorted, logins);
+    }
+
+    private long countStatements(Runnable search) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        search.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
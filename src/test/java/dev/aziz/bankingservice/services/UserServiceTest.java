@@ -1,7 +1,11 @@
 package dev.aziz.bankingservice.services;
 
+import dev.aziz.bankingservice.dtos.CredentialsDto;
+import dev.aziz.bankingservice.dtos.SignUpDto;
 import dev.aziz.bankingservice.dtos.UserDto;
 import dev.aziz.bankingservice.dtos.UserSummaryDto;
+import dev.aziz.bankingservice.entities.Email;
+import dev.aziz.bankingservice.entities.PhoneNumber;
 import dev.aziz.bankingservice.entities.User;
 import dev.aziz.bankingservice.exceptions.AppException;
 import dev.aziz.bankingservice.mappers.UserMapper;
@@ -9,20 +13,36 @@ import dev.aziz.bankingservice.mappers.UserMapperImpl;
 import dev.aziz.bankingservice.repositories.EmailRepository;
 import dev.aziz.bankingservice.repositories.PhoneNumberRepository;
 import dev.aziz.bankingservice.repositories.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolationException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -41,11 +61,36 @@ class UserServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private LoginPrefixIndex loginPrefixIndex;
+
+    @Mock
+    private UniquenessFilter uniquenessFilter;
 
     @Spy
     private final UserMapper userMapper = new UserMapperImpl();
 
+    @Spy
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(userService, "transferMaxAttempts", 3);
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
     @Test
     void sendMoneyTest() {
         // given
@@ -57,8 +102,8 @@ class UserServiceTest {
         BigDecimal money = BigDecimal.valueOf(100);
 
         // when
-        when(userRepository.findByLogin(sender.getLogin())).thenReturn(Optional.of(sender));
-        when(userRepository.findById(receiver.getId())).thenReturn(Optional.of(receiver));
+        when(userRepository.findAllByIdInForUpdate(List.of(sender.getId(), receiver.getId())))
+                .thenReturn(List.of(sender, receiver));
 
         UserSummaryDto userSummaryDto = userService.sendMoney(userDto, money, receiver.getId());
 
@@ -66,10 +111,14 @@ class UserServiceTest {
         assertAll(() -> {
             assertEquals(new BigDecimal(5100), receiver.getAccount());
             assertEquals(new BigDecimal(1200), sender.getAccount());
+            assertEquals(new BigDecimal(1200), userSummaryDto.getAccount());
+            assertEquals(1L, sender.getLedgerSeq());
+            assertEquals(1L, receiver.getLedgerSeq());
         });
+        assertEquals(1, meterRegistry.timer("transfer", "outcome", "success").count());
 
-        verify(userRepository, times(1)).save(sender);
-        verify(userRepository, times(1)).save(receiver);
+        verify(transactionTemplate, times(1)).execute(any());
+        verify(ledgerService, times(1)).record(argThat(entries -> entries.size() == 2));
     }
 
     @Test
@@ -83,8 +132,8 @@ class UserServiceTest {
         BigDecimal money = BigDecimal.valueOf(100);
 
         // when
-        when(userRepository.findByLogin(sender.getLogin())).thenReturn(Optional.of(sender));
-        when(userRepository.findById(receiver.getId())).thenReturn(Optional.of(receiver));
+        when(userRepository.findAllByIdInForUpdate(List.of(sender.getId(), receiver.getId())))
+                .thenReturn(List.of(sender, receiver));
 
         AppException exception = assertThrows(AppException.class, () -> {
             userService.sendMoney(userDto, money, receiver.getId());
@@ -93,17 +142,20 @@ class UserServiceTest {
         // then
         assertEquals("You do not have enough money.", exception.getMessage());
         assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        assertEquals(1, meterRegistry.timer("transfer", "outcome", "insufficient_funds").count());
     }
 
     @Test
     void sendMoneySenderNotFoundTest() {
         // given
-        UserDto userDto = UserDto.builder().login("azizdev").build();
+        User receiver = User.builder().id(2L).login("azimdev").firstName("Azim").lastName("Abdukarimov")
+                .birthDate(LocalDate.parse("1996-01-26")).initialDeposit(BigDecimal.valueOf(5000)).account(BigDecimal.valueOf(5000)).build();
+        UserDto userDto = UserDto.builder().id(1L).login("azizdev").build();
         BigDecimal money = BigDecimal.valueOf(100);
         Long receiverId = 2L;
 
         // when
-        when(userRepository.findByLogin(userDto.getLogin())).thenReturn(Optional.empty());
+        when(userRepository.findAllByIdInForUpdate(List.of(1L, receiverId))).thenReturn(List.of(receiver));
 
         AppException exception = assertThrows(AppException.class, () -> {
             userService.sendMoney(userDto, money, receiverId);
@@ -112,6 +164,7 @@ class UserServiceTest {
         // then
         assertEquals("User by azizdev not found", exception.getMessage());
         assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+        assertEquals(1, meterRegistry.timer("transfer", "outcome", "not_found").count());
     }
 
     @Test
@@ -124,8 +177,7 @@ class UserServiceTest {
         Long receiverId = 2L;
 
         // when
-        when(userRepository.findByLogin(sender.getLogin())).thenReturn(Optional.of(sender));
-        when(userRepository.findById(receiverId)).thenReturn(Optional.empty());
+        when(userRepository.findAllByIdInForUpdate(List.of(sender.getId(), receiverId))).thenReturn(List.of(sender));
 
         AppException exception = assertThrows(AppException.class, () -> {
             userService.sendMoney(userDto, money, receiverId);
@@ -135,6 +187,218 @@ class UserServiceTest {
         assertEquals("User by id 2 not found", exception.getMessage());
         assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
     }
-}
 
+    @Test
+    void sendMoneyNonPositiveAmountTest() {
+        // given
+        UserDto userDto = UserDto.builder().id(1L).login("azizdev").build();
+
+        // when
+        AppException exception = assertThrows(AppException.class, () -> {
+            userService.sendMoney(userDto, BigDecimal.valueOf(-100), 2L);
+        });
+
+        // then
+        assertEquals("Amount should be positive.", exception.getMessage());
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void sendMoneyToSelfTest() {
+        // given
+        UserDto userDto = UserDto.builder().id(1L).login("azizdev").build();
+
+        // when
+        AppException exception = assertThrows(AppException.class, () -> {
+            userService.sendMoney(userDto, BigDecimal.valueOf(100), 1L, "retry-key");
+        });
+
+        // then
+        assertEquals("You cannot send money to yourself.", exception.getMessage());
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        verifyNoInteractions(userRepository, transactionTemplate);
+    }
+
+    @Test
+    void sendMoneyRetriesOnLockFailureTest() {
+        // given
+        UserDto userDto = UserDto.builder().id(1L).login("azizdev").build();
+
+        // when
+        when(userRepository.findAllByIdInForUpdate(List.of(1L, 2L)))
+                .thenThrow(new CannotAcquireLockException("deadlock detected"));
+
+        AppException exception = assertThrows(AppException.class, () -> {
+            userService.sendMoney(userDto, BigDecimal.valueOf(100), 2L);
+        });
+
+        // then
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        assertEquals(2, meterRegistry.counter("transfer.retries").count());
+        verify(userRepository, times(3)).findAllByIdInForUpdate(List.of(1L, 2L));
+    }
+
+    @Test
+    void scrollUsersRejectsMalformedCursorTest() {
+        // given
+        String garbage = "%%not-a-cursor%%";
+        String badKey = new UserCursor("birthDate", Sort.Direction.ASC, 1L, "not-a-date").encode();
+
+        // when
+        AppException garbageException = assertThrows(AppException.class, () -> {
+            userService.scrollUsers(null, null, null, null, garbage, 10, "birthDate", "ASC");
+        });
+        AppException badKeyException = assertThrows(AppException.class, () -> {
+            userService.scrollUsers(null, null, null, null, badKey, 10, "birthDate", "ASC");
+        });
+        AppException badYearException = assertThrows(AppException.class, () -> {
+            userService.scrollUsers(Integer.MAX_VALUE, null, null, null, "", 10, "id", "ASC");
+        });
+
+        // then
+        assertEquals("Invalid cursor", garbageException.getMessage());
+        assertEquals("Invalid cursor", badKeyException.getMessage());
+        assertEquals(HttpStatus.BAD_REQUEST, badKeyException.getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST, badYearException.getStatus());
+        verifyNoInteractions(userRepository);
+    }
 
+    @Test
+    void registerSkipsExistenceQueriesWhenFilterIsNegativeTest() {
+        // given
+        SignUpDto signUpDto = SignUpDto.builder().firstName("Aziz").lastName("Abdukarimov").login("azizdev")
+                .birthDate(LocalDate.parse("2000-01-26")).email("Aziz@Mail.com").phoneNumber("7 999 1234567")
+                .account(BigDecimal.valueOf(1000)).password("password".toCharArray()).build();
+
+        // when
+        when(passwordHashingService.encode(any())).thenReturn("hash");
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            user.setId(1L);
+            return user;
+        });
+        when(emailRepository.save(any(Email.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(phoneNumberRepository.save(any(PhoneNumber.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        UserDto userDto = userService.register(signUpDto);
+
+        // then
+        assertEquals("azizdev", userDto.getLogin());
+        verify(userRepository, never()).existsByLogin(any());
+        verify(emailRepository, never()).existsEmailByNameKey(any());
+        verify(phoneNumberRepository, never()).existsPhoneNumberByNumberKey(any());
+        verify(uniquenessFilter, times(1)).putEmail("aziz@mail.com");
+        verify(uniquenessFilter, times(1)).putPhone(79991234567L);
+    }
+
+    @Test
+    void registerWithDigitlessPhoneReachesValidationTest() {
+        // given
+        UniquenessFilter filter = new UniquenessFilter(mock(JdbcTemplate.class));
+        ReflectionTestUtils.setField(filter, "expectedInsertions", 100);
+        ReflectionTestUtils.setField(filter, "fpp", 0.01);
+        filter.load();
+        ReflectionTestUtils.setField(userService, "uniquenessFilter", filter);
+        SignUpDto signUpDto = SignUpDto.builder().firstName("Aziz").lastName("Abdukarimov").login("azizdev")
+                .birthDate(LocalDate.parse("2000-01-26")).email("aziz@mail.com").phoneNumber("no digits")
+                .account(BigDecimal.valueOf(1000)).password("password".toCharArray()).build();
+
+        // when
+        when(passwordHashingService.encode(any())).thenReturn("hash");
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            user.setId(1L);
+            return user;
+        });
+        when(emailRepository.save(any(Email.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(phoneNumberRepository.save(any(PhoneNumber.class)))
+                .thenThrow(new ConstraintViolationException("Invalid phone number format", Set.of()));
+
+        // then
+        assertThrows(ConstraintViolationException.class, () -> {
+            userService.register(signUpDto);
+        });
+        verify(phoneNumberRepository, times(1)).existsPhoneNumberByNumberKey(null);
+    }
+
+    @Test
+    void registerMapsUniqueViolationToMessageTest() {
+        // given
+        SignUpDto signUpDto = SignUpDto.builder().firstName("Aziz").lastName("Abdukarimov").login("azizdev")
+                .birthDate(LocalDate.parse("2000-01-26")).email("aziz@mail.com").phoneNumber("79991234567")
+                .account(BigDecimal.valueOf(1000)).password("password".toCharArray()).build();
+
+        // when
+        when(passwordHashingService.encode(any())).thenReturn("hash");
+        when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("uk_email_name_key"));
+        when(emailRepository.existsEmailByNameKey("aziz@mail.com")).thenReturn(true);
+
+        AppException exception = assertThrows(AppException.class, () -> {
+            userService.register(signUpDto);
+        });
+
+        // then
+        assertEquals("Email already exists", exception.getMessage());
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        verify(uniquenessFilter, never()).putLogin(any());
+    }
+
+    @Test
+    void loginRehashesOutdatedPasswordTest() {
+        // given
+        User user = User.builder().id(1L).login("azizdev").password("old-hash").build();
+        CredentialsDto credentialsDto = CredentialsDto.builder().login("azizdev").password("password".toCharArray()).build();
+
+        // when
+        when(userRepository.findByLogin("azizdev")).thenReturn(Optional.of(user));
+        when(passwordHashingService.matches(any(), eq("old-hash"))).thenReturn(true);
+        when(passwordHashingService.needsRehash("old-hash")).thenReturn(true);
+        when(passwordHashingService.encodeAsync(any())).thenReturn(CompletableFuture.completedFuture("new-hash"));
+
+        UserDto userDto = userService.login(credentialsDto);
+
+        // then
+        assertEquals("azizdev", userDto.getLogin());
+        verify(userRepository, times(1)).updatePassword(1L, "new-hash");
+    }
+
+    @Test
+    void loginSucceedsWhenRehashIsRejectedTest() {
+        // given
+        User user = User.builder().id(1L).login("azizdev").password("old-hash").build();
+        CredentialsDto credentialsDto = CredentialsDto.builder().login("azizdev").password("password".toCharArray()).build();
+
+        // when
+        when(userRepository.findByLogin("azizdev")).thenReturn(Optional.of(user));
+        when(passwordHashingService.matches(any(), eq("old-hash"))).thenReturn(true);
+        when(passwordHashingService.needsRehash("old-hash")).thenReturn(true);
+        when(passwordHashingService.encodeAsync(any()))
+                .thenThrow(new AppException("Too many requests, please retry.", HttpStatus.TOO_MANY_REQUESTS));
+
+        UserDto userDto = userService.login(credentialsDto);
+
+        // then
+        assertEquals("azizdev", userDto.getLogin());
+        verify(userRepository, never()).updatePassword(any(), any());
+    }
+
+    @Test
+    void loginSucceedsWhenRehashFailsTest() {
+        // given
+        User user = User.builder().id(1L).login("azizdev").password("old-hash").build();
+        CredentialsDto credentialsDto = CredentialsDto.builder().login("azizdev").password("password".toCharArray()).build();
+
+        // when
+        when(userRepository.findByLogin("azizdev")).thenReturn(Optional.of(user));
+        when(passwordHashingService.matches(any(), eq("old-hash"))).thenReturn(true);
+        when(passwordHashingService.needsRehash("old-hash")).thenReturn(true);
+        when(passwordHashingService.encodeAsync(any())).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("boom")));
+
+        UserDto userDto = userService.login(credentialsDto);
+
+        // then
+        assertEquals("azizdev", userDto.getLogin());
+        verify(userRepository, never()).updatePassword(any(), any());
+    }
+}
@@ -0,0 +1,11 @@
+-- Schema ddl-auto: update created from the entities before Flyway was introduced, with one user in it.
+create table app_user (account numeric(15,3), birth_date date not null, initial_deposit numeric(15,3), id bigserial not null, first_name varchar(255) not null, last_name varchar(255) not null, login varchar(255) not null unique, password varchar(255) not null, primary key (id));
+create table email (id bigserial not null, user_id bigint, name varchar(255) not null unique, primary key (id));
+create table phone_number (id bigserial not null, user_id bigint, number varchar(255) not null unique, primary key (id));
+alter table if exists email add constraint FKmjmkgt0hsc5wb5blrtgd3wk8v foreign key (user_id) references app_user;
+alter table if exists phone_number add constraint FKr7i8bvt84e0n54kfmaqwyk3w0 foreign key (user_id) references app_user;
+
+insert into app_user (first_name, last_name, birth_date, login, password, account, initial_deposit)
+values ('First', 'Last', date '1990-01-01', 'legacy', 'password', 100, 100);
+insert into email (name, user_id) values ('Legacy@Mail.com', 1);
+insert into phone_number (number, user_id) values ('7 977 000 00 00', 1);